@@ -28,6 +28,7 @@ import com.kanzaji.catdownloaderlegacy.data.Settings;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.ZipExtractor;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.FileNotFoundException;
@@ -47,13 +48,26 @@ public class ArgumentDecoder {
             "modrinth",
             "automatic"
     };
+    private static final String[] logLevels = {
+            "info",
+            "quiet",
+            "warn",
+            "error",
+            "critical"
+    };
     private ArgumentDecoder() {}
     private String WorkingDirectory = "";
     private String SettingsPath = "";
     private String LogPath = "";
     private String CachePath = "";
     private String Mode = "automatic";
+    private String LogLevel = "info";
+    private ZipExtractor.ConflictPolicy OverridesConflictPolicy = ZipExtractor.ConflictPolicy.OVERWRITE;
     private int ThreadCount = 16;
+    private int IOThreadCount = 16;
+    private int HashThreadCount = 0;
+    private int ResolverThreadCount = 8;
+    private int CFRequestRate = 10;
     private int DownloadAttempts = 5;
     private int LogStockSize = 10;
     private boolean UpdaterActive = true;
@@ -61,8 +75,11 @@ public class ArgumentDecoder {
     private boolean LoggerActive = true;
     private boolean StockpileLogs = true;
     private boolean CompressStockPiledLogs = true;
+    private boolean EventLog = false;
     private boolean FileSizeVerification = true;
     private boolean HashVerification = true;
+    private boolean DirectIO = false;
+    private boolean LocalityOrdering = false;
     private boolean Settings = true;
     private boolean DefaultSettingsFromTemplate = true;
     private boolean Experimental = false;
@@ -104,17 +121,24 @@ public class ArgumentDecoder {
 
                 // Int Arguments
                 case "threadcount" -> this.ThreadCount = getIntValue(value, "-ThreadCount", 1, 128);
+                case "iothreadcount" -> this.IOThreadCount = getIntValue(value, "-IOThreadCount", 1, 128);
+                case "hashthreadcount" -> this.HashThreadCount = getIntValue(value, "-HashThreadCount", 0, 128);
+                case "resolverthreadcount" -> this.ResolverThreadCount = getIntValue(value, "-ResolverThreadCount", 1, 64);
+                case "cfrequestrate" -> this.CFRequestRate = getIntValue(value, "-CFRequestRate", 0, 1000);
                 case "downloadattempts" -> this.DownloadAttempts = getIntValue(value, "-DownloadAttempts", 1, 255);
                 case "logstocksize" -> this.LogStockSize = getIntValue(value, "-LogStockSize", 0, Integer.MAX_VALUE);
 
                 // Boolean Arguments
                 case "sizeverification" -> this.FileSizeVerification = getBooleanValue(value);
                 case "hashverification" -> this.HashVerification = getBooleanValue(value);
+                case "directio" -> this.DirectIO = getBooleanValue(value);
+                case "localityordering" -> this.LocalityOrdering = getBooleanValue(value);
                 case "updater" -> this.UpdaterActive = getBooleanValue(value);
                 case "cache" -> this.CacheActive = getBooleanValue(value);
                 case "logger" -> this.LoggerActive = getBooleanValue(value);
                 case "stockpilelogs" -> this.StockpileLogs = getBooleanValue(value);
                 case "compresslogs" -> this.CompressStockPiledLogs = getBooleanValue(value);
+                case "eventlog" -> this.EventLog = getBooleanValue(value);
                 case "settings" -> this.Settings = getBooleanValue(value);
                 case "defaultsettings" -> this.DefaultSettingsFromTemplate = getBooleanValue(value);
                 case "experimental" -> this.Experimental = getBooleanValue(value);
@@ -131,6 +155,24 @@ public class ArgumentDecoder {
                     }
                     this.Mode = value;
                 }
+                case "loglevel" -> {
+                    value = value.toLowerCase(Locale.ROOT);
+                    if (!validateLogLevel(value)) {
+                        logger.print("Wrong log level selected!", 3);
+                        logger.print("Available log levels: Info // Quiet // Warn // Error // Critical", 3);
+                        throw new IllegalArgumentException("Incorrect Log Level detected (" + value + ")!");
+                    }
+                    this.LogLevel = value;
+                }
+                case "overridesconflictpolicy" -> {
+                    ZipExtractor.ConflictPolicy policy = ZipExtractor.ConflictPolicy.fromString(value);
+                    if (Objects.isNull(policy)) {
+                        logger.print("Wrong conflict policy for the overrides selected!", 3);
+                        logger.print("Available policies: Overwrite // Keep // Backup", 3);
+                        throw new IllegalArgumentException("Incorrect Overrides Conflict Policy detected (" + value + ")!");
+                    }
+                    this.OverridesConflictPolicy = policy;
+                }
 
                 default -> {
                 }
@@ -229,6 +271,15 @@ public class ArgumentDecoder {
         return Arrays.asList(modes).contains(Mode);
     }
 
+    /**
+     * Used to validate selected log level!
+     * @param LogLevel Log level to verify.
+     * @return boolean True when log level is available.
+     */
+    public static boolean validateLogLevel(String LogLevel) {
+        return Arrays.asList(logLevels).contains(LogLevel);
+    }
+
     /**
      * Prints entire {@link ArgumentDecoder} Configuration to a log file.
      */
@@ -248,15 +299,24 @@ public class ArgumentDecoder {
         logger.log("> Stockpiling logs active: " + this.StockpileLogs);
         logger.log("> Amount of logs to keep: " + this.LogStockSize);
         logger.log("> Compressing of logs active: " + this.CompressStockPiledLogs);
+        logger.log("> Log level: " + this.LogLevel);
+        logger.log("> Event log enabled: " + this.EventLog);
         logger.log("> Logs Path: " + this.LogPath);
         logger.log("- Full Path: " + Path.of(this.LogPath).toAbsolutePath());
         logger.log("> Caches enabled: " + this.CacheActive);
         logger.log("> Caches Path: " + this.CachePath);
         logger.log("- Full Path: " + Path.of(this.CachePath).toAbsolutePath());
         logger.log("> Thread count for downloads: " + this.ThreadCount);
+        logger.log("> Thread count for verification reads: " + this.IOThreadCount);
+        logger.log("> Thread count for hash calculations: " + this.getHashThreads());
+        logger.log("> Thread count for CurseForge resolving: " + this.ResolverThreadCount);
+        logger.log("> CurseForge API request rate: " + ((this.CFRequestRate > 0)? this.CFRequestRate + " per second": "unlimited"));
+        logger.log("> Locality ordering of verification: " + this.LocalityOrdering);
+        logger.log("> Conflict policy for the overrides: " + this.OverridesConflictPolicy);
         logger.log("> Download attempts for re-downloads: " + this.DownloadAttempts);
         logger.log("> Hash Verification: " + this.HashVerification);
         logger.log("> File Size Verification: " + this.FileSizeVerification);
+        logger.log("> Direct I/O for Verification: " + this.DirectIO);
         logger.log("---------------------------------------------------------------------");
     }
 
@@ -271,12 +331,21 @@ public class ArgumentDecoder {
         this.LogPath = SettingsData.logDirectory;
         this.LoggerActive = SettingsData.isLoggerActive;
         this.CompressStockPiledLogs = SettingsData.shouldCompressLogFiles;
+        this.EventLog = SettingsData.isEventLogActive;
         this.StockpileLogs = SettingsData.shouldStockpileLogs;
         this.LogStockSize = SettingsData.logStockpileSize;
+        this.LogLevel = Objects.requireNonNullElse(SettingsData.logLevel, "info").toLowerCase(Locale.ROOT);
         this.ThreadCount = SettingsData.threadCount;
+        this.IOThreadCount = SettingsData.ioThreadCount;
+        this.HashThreadCount = SettingsData.hashThreadCount;
+        this.ResolverThreadCount = SettingsData.resolverThreadCount;
+        this.CFRequestRate = SettingsData.cfRequestRate;
+        this.OverridesConflictPolicy = Objects.requireNonNullElse(ZipExtractor.ConflictPolicy.fromString(SettingsData.overridesConflictPolicy), ZipExtractor.ConflictPolicy.OVERWRITE);
         this.DownloadAttempts = SettingsData.downloadAttempts;
         this.FileSizeVerification = SettingsData.isFileSizeVerificationActive;
         this.HashVerification = SettingsData.isHashVerificationActive;
+        this.DirectIO = SettingsData.isDirectIOVerificationActive;
+        this.LocalityOrdering = SettingsData.shouldSortVerificationByLocality;
         this.Experimental = SettingsData.experimental;
         this.CacheActive = SettingsData.dataCache;
         this.CachePath = (Objects.equals(SettingsData.dataCacheDirectory, "")? this.LogPath: SettingsData.dataCacheDirectory);
@@ -303,6 +372,8 @@ public class ArgumentDecoder {
 
     // Just a spam of Get methods. Nothing spectacular to see here.
     public String[] getAvailableModes() {return modes;}
+    public static String[] getAvailableLogLevels() {return logLevels;}
+    public String getLogLevel() {return this.LogLevel;}
     public String getCurrentMode() {return this.Mode;}
     public boolean isPackMode() {return Objects.equals(this.Mode, "cf-pack");}
     public boolean isInstanceMode() {return Objects.equals(this.Mode, "cf-instance");}
@@ -314,6 +385,12 @@ public class ArgumentDecoder {
     public String getCachePath() {return this.CachePath;};
     public int getDownloadAttempts() {return this.DownloadAttempts;}
     public int getThreads() {return this.ThreadCount;}
+    public int getIOThreads() {return this.IOThreadCount;}
+    public int getHashThreadSetting() {return this.HashThreadCount;}
+    public int getHashThreads() {return (this.HashThreadCount > 0)? this.HashThreadCount: Runtime.getRuntime().availableProcessors();}
+    public int getResolverThreads() {return this.ResolverThreadCount;}
+    public int getCFRequestRate() {return this.CFRequestRate;}
+    public ZipExtractor.ConflictPolicy getOverridesConflictPolicy() {return this.OverridesConflictPolicy;}
     public int getLogStockSize() {return this.LogStockSize;}
     public boolean areSettingsEnabled() {return this.Settings;}
     public boolean shouldDefaultSettings() {return this.DefaultSettingsFromTemplate;}
@@ -321,8 +398,11 @@ public class ArgumentDecoder {
     public boolean isLoggerActive() {return this.LoggerActive;}
     public boolean shouldStockpileLogs() {return this.StockpileLogs;}
     public boolean shouldCompressLogs() {return this.CompressStockPiledLogs;}
+    public boolean isEventLogActive() {return this.EventLog;}
     public boolean isFileSizeVerActive() {return this.FileSizeVerification;}
     public boolean isHashVerActive() {return this.HashVerification;}
+    public boolean isDirectIOActive() {return this.DirectIO;}
+    public boolean shouldSortByLocality() {return this.LocalityOrdering;}
     public boolean isExperimental() {return this.Experimental;}
     public boolean isBypassNetworkCheckActive() {return this.BypassNetworkCheck;}
     public boolean isCacheEnabled() {return this.CacheActive;}
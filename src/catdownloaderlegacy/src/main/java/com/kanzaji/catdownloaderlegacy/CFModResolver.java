@@ -0,0 +1,184 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
+import com.kanzaji.catdownloaderlegacy.data.CFManifest;
+import com.kanzaji.catdownloaderlegacy.data.CFResolutionCache;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CFModResolver is a class used to gather data about CurseForge files of the CF-Pack concurrently.
+ * Files present in the {@link CFResolutionCache} are resolved without any requests,
+ * other files are requested from the API by multiple threads, limited to the specified amount of requests per second.
+ * Requests that the API can't answer yet are deferred to a scheduler, and repeated without blocking other requests.
+ */
+public class CFModResolver implements AutoCloseable {
+    private static final LoggerCustom logger = new LoggerCustom("CF Mod Resolver");
+    private static final int MAX_ATTEMPTS = 7;
+    private static final long INITIAL_RETRY_DELAY = 2000;
+    private static final long MAX_RETRY_DELAY = 60000;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final long requestInterval;
+    private long nextRequest = 0;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+
+    /**
+     * Used to create new resolver.
+     * @param Threads Amount of threads requesting data from the API.
+     * @param RequestRate Maximum amount of requests per second. Value of 0 disables the limit.
+     */
+    public CFModResolver(int Threads, int RequestRate) {
+        if (Threads < 1) throw new IllegalArgumentException("Resolver thread count can't be below 1!");
+        if (RequestRate < 0) throw new IllegalArgumentException("Request rate can't be negative!");
+        this.executor = Executors.newFixedThreadPool(Threads);
+        this.requestInterval = (RequestRate > 0)? TimeUnit.SECONDS.toNanos(1) / RequestRate: 0;
+    }
+
+    /**
+     * Used to gather data for all CF-PACK_MOD files in specified instance.
+     * Requests answered with 202 / 500 (data is being generated) are polled again with increasing delays,
+     * and requests answered with 403 are repeated without the file version. Deferred requests don't occupy the resolver threads.
+     * @param Instance {@link CDLInstance} with files to resolve.
+     * @param Resolutions {@link CFResolutionCache} to use, or null if the resolutions shouldn't be cached.
+     * @return Number of files that had to be requested from the API.
+     * @throws InterruptedException when the thread is interrupted while waiting for the requests.
+     */
+    public int resolve(@NotNull CDLInstance Instance, @Nullable CFResolutionCache Resolutions) throws InterruptedException {
+        Objects.requireNonNull(Instance);
+        long StartingTime = System.nanoTime();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        int cached = 0;
+
+        for (int index = 0; index < Instance.files.length; index++) {
+            CDLInstance.ModFile mod = Instance.files[index];
+            if (!Objects.equals(mod.fileName, "CF-PACK_MOD")) continue;
+            if (Instance.applyCFResolution(index, Resolutions)) {
+                cached++;
+                continue;
+            }
+
+            // For CF-PACK_MOD, fileLength holds project ID and downloadURL holds file ID.
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            results.add(result);
+            this.submit(Instance, index, new CFManifest.CFModFile(mod.fileLength, Integer.parseInt(mod.downloadURL)), Resolutions, 1, result);
+        }
+
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get();
+        } catch (ExecutionException e) {
+            logger.logStackTrace("Exception thrown while gathering data about mods!", e);
+        }
+
+        int unresolved = (int) Arrays.stream(Instance.files).filter((file) -> Objects.equals(file.fileName, "CF-PACK_MOD")).count();
+        logger.log(
+            "Gathered data for " + RandomUtils.intGrammar(cached + results.size(), " mod", " mods", true) +
+            " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - StartingTime) + "ms: " +
+            cached + " from the resolution cache, " + this.requests.get() + " requests to the API (" + this.retries.get() + " deferred), " +
+            unresolved + " unresolved."
+        );
+        return results.size();
+    }
+
+    /**
+     * Used to submit a request for the CF-PACK_MOD at specified index to the resolver threads.
+     * @param Instance {@link CDLInstance} with the file.
+     * @param Index Index of the file.
+     * @param Request {@link CFManifest.CFModFile} with the state of the previous request.
+     * @param Resolutions {@link CFResolutionCache} to use, or null if the resolutions shouldn't be cached.
+     * @param Attempt Number of the attempt.
+     * @param Result {@link CompletableFuture} completed when the file is resolved, or no more attempts are possible.
+     */
+    private void submit(CDLInstance Instance, int Index, CFManifest.CFModFile Request, @Nullable CFResolutionCache Resolutions, int Attempt, CompletableFuture<Void> Result) {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.acquireRequestPermit();
+                    this.requests.incrementAndGet();
+                    CFManifest.CFModFile response = Instance.requestCFModInformation(Index, Request, Resolutions);
+                    if (Objects.isNull(response) || (!response.error202 && !response.error403)) {
+                        Result.complete(null);
+                        return;
+                    }
+
+                    if (Attempt >= MAX_ATTEMPTS) {
+                        logger.error("Data for project " + Request.projectID + " (file " + Request.fileID + ") is still not available after " + Attempt + " attempts!");
+                        Result.complete(null);
+                        return;
+                    }
+
+                    CFManifest.CFModFile retry = new CFManifest.CFModFile(Request.projectID, Request.fileID);
+                    retry.error202 = response.error202;
+                    retry.error403 = response.error403;
+                    // 403 switches to a different request, which can be sent right away. 202 means the data is being generated, so it is polled with backoff.
+                    long delay = (response.error202)? Math.min(INITIAL_RETRY_DELAY << (Attempt - 1), MAX_RETRY_DELAY): 0;
+                    logger.log(() -> "Request for project " + Request.projectID + " (file " + Request.fileID + ") deferred by " + delay + "ms (Attempt " + Attempt + ").");
+                    this.retries.incrementAndGet();
+                    this.scheduler.schedule(() -> this.submit(Instance, Index, retry, Resolutions, Attempt + 1, Result), delay, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    Result.complete(null);
+                } catch (Exception e) {
+                    Result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Result.complete(null);
+        }
+    }
+
+    /**
+     * Used to wait until the next request is allowed by the request rate.
+     * Requests are spaced evenly, so bursts from multiple threads don't exceed the rate limit of the API.
+     * @throws InterruptedException when the thread is interrupted while waiting.
+     */
+    private void acquireRequestPermit() throws InterruptedException {
+        if (this.requestInterval == 0) return;
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, this.nextRequest);
+            this.nextRequest = slot + this.requestInterval;
+            wait = slot - now;
+        }
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.executor.shutdownNow();
+    }
+}
@@ -24,21 +24,32 @@
 
 package com.kanzaji.catdownloaderlegacy;
 
+import com.kanzaji.catdownloaderlegacy.data.BinaryInstanceCache;
 import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
 import com.kanzaji.catdownloaderlegacy.data.CFManifest;
-import com.kanzaji.catdownloaderlegacy.data.MRIndex;
+import com.kanzaji.catdownloaderlegacy.data.CFResolutionCache;
+import com.kanzaji.catdownloaderlegacy.data.InstanceCacheStore;
+import com.kanzaji.catdownloaderlegacy.data.ManifestReader;
 import com.kanzaji.catdownloaderlegacy.exceptions.FormatVersionMismatchException;
 import com.kanzaji.catdownloaderlegacy.guis.GUIUtils;
-import com.kanzaji.catdownloaderlegacy.data.CFMinecraftInstance;
+import com.kanzaji.catdownloaderlegacy.loggers.EventLog;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import com.kanzaji.catdownloaderlegacy.utils.*;
 
 import com.google.gson.Gson;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 
 
 /**
@@ -81,6 +92,26 @@ public final class CatDownloader {
      * Used to hold data for the SyncManager and manifest parsing.
      */
     private static final CDLInstance CDLInstanceData = CDLInstance.create();
+    /**
+     * Used to hold resolved CurseForge files in the CF-Pack mode. Null when caches are disabled, or in other modes.
+     */
+    private static CFResolutionCache CFResolutions = null;
+    /**
+     * Used to hold the zip file system of the modpack archive (.mrpack or CurseForge .zip), when the manifest is read directly from the archive.
+     */
+    private static FileSystem archiveFileSystem = null;
+    /**
+     * Used to hold the CurseForge manifest read from the archive while preparing the workspace, so it isn't parsed twice. Null in other cases.
+     */
+    private static CFManifest archivedCFManifest = null;
+    /**
+     * Used to hold the extraction of the overrides from the modpack archive running in the background. Null when there is nothing to extract.
+     */
+    private static CompletableFuture<ZipExtractor.Result> overridesExtraction = null;
+    /**
+     * Used to hold paths of the files provided by the overrides, relative to the working directory.
+     */
+    private static final Set<String> overrideFiles = new HashSet<>();
 
     /**
      * Main method of the app.
@@ -101,7 +132,7 @@ public final class CatDownloader {
 
             fetchAndVerifyManifestFile();
 
-            new SyncManager(CDLInstanceData).runSync();
+            new SyncManager(CDLInstanceData, overridesExtraction, overrideFiles).runSync();
 
             createCacheFile();
 
@@ -153,6 +184,17 @@ public final class CatDownloader {
                 ARD.setCurrentMode("cf-instance");
             }
 
+            if (ARD.isAutomaticModeDetectionActive()) {
+                Path archive = findCFPackArchive();
+                if (Objects.nonNull(archive)) {
+                    logger.log("Found CurseForge modpack zip in the working directory!");
+                    logger.log("Manifest file => " + archive.toAbsolutePath());
+                    logger.log("App will be running in \"cf-pack\" mode.");
+                    manifestFile = archive;
+                    ARD.setCurrentMode("cf-pack");
+                }
+            }
+
             if (ARD.isAutomaticModeDetectionActive() || Files.notExists(manifestFile)) {
                 logger.print("Couldn't find any compatible manifest file in the working directory.", 1);
                 RandomUtils.closeTheApp(0);
@@ -165,6 +207,10 @@ public final class CatDownloader {
                 case "cf-pack" -> {
                     System.out.println("CurseForge site format support is experimental! Use at your own responsibility.");
                     manifestFile = Path.of(WORKPATH.toAbsolutePath().toString(), "manifest.json");
+                    if (Files.notExists(manifestFile)) {
+                        Path archive = findCFPackArchive();
+                        if (Objects.nonNull(archive)) manifestFile = archive;
+                    }
                 }
                 default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + ARD.getCurrentMode());
             }
@@ -183,9 +229,9 @@ public final class CatDownloader {
      * <ul>
      *     <li>Checks if Mods file does not exists</li>
      *     <li>Checks if Mods folder Exists, if not, creates one.</li>
-     *     <li>Checks if the app mode is Modrinth, and if the Manifest file is .mrpack file.</li>
-     *     <li>If above step is true, repeats first two steps for CDLTemp directory, and unzips the .mrpack file.</li>
-     *     <li>Changes manifest file to point to the Temp directory</li>
+     *     <li>Checks if the Manifest file is a .mrpack file in the Modrinth mode, or a .zip file in the CF-Pack mode.</li>
+     *     <li>If above step is true, changes manifest file to point to the manifest inside the archive.</li>
+     *     <li>Starts extraction of the overrides to the working directory in the background.</li>
      * </ul>
      * @throws IOException when IO Exception occurs.
      */
@@ -206,13 +252,86 @@ public final class CatDownloader {
             logger.log("Found \"mods\" folder in working directory. Path: " + ModsFolder.toAbsolutePath());
         }
 
-        if (ARD.isModrinthMode() && manifestFile.getFileName().toString().endsWith(".mrpack")) {
-            logger.log("Manifest file is a Modrinth zip file! Uncompressing...");
-            Path CDLTemp = Path.of(WORKPATH.toString(), "CDLTemp");
-            FileUtils.delete(CDLTemp);
-            FileUtils.unzip(manifestFile, CDLTemp);
-            manifestFile = Path.of(CDLTemp.toAbsolutePath().toString(), "modrinth.index.json");
+        String manifestFileName = manifestFile.getFileName().toString();
+        if (ARD.isModrinthMode() && manifestFileName.endsWith(".mrpack")) {
+            logger.log("Manifest file is a Modrinth zip file! Reading the index directly from the archive...");
+            prepareArchive("modrinth.index.json");
+        } else if (ARD.isPackMode() && manifestFileName.endsWith(".zip")) {
+            logger.log("Manifest file is a CurseForge zip file! Reading the manifest directly from the archive...");
+            prepareArchive("manifest.json");
+        }
+    }
+
+    /**
+     * Used to open the modpack archive specified as the manifest file, without extracting it to the disk.
+     * Manifest file is changed to point to the manifest inside the archive, and the extraction of the overrides is started in the background.
+     * Overrides are only required to be in place at the end of the sync, so the extraction runs concurrently with the import of the manifest and resolving of the mods.
+     * @param ManifestName {@link String} with the name of the manifest file in the root of the archive.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static void prepareArchive(@NotNull String ManifestName) throws IOException {
+        Path CDLTemp = Path.of(WORKPATH.toString(), "CDLTemp");
+        Path archive = manifestFile;
+        if (Files.exists(CDLTemp)) FileUtils.delete(CDLTemp);
+
+        archiveFileSystem = FileSystems.newFileSystem(archive);
+        manifestFile = archiveFileSystem.getPath(ManifestName);
+
+        String overridesDirectory = "overrides";
+        if (ARD.isPackMode()) {
+            try {
+                archivedCFManifest = ManifestReader.readCFManifest(manifestFile);
+                if (Objects.nonNull(archivedCFManifest.overrides) && !archivedCFManifest.overrides.isBlank()) overridesDirectory = archivedCFManifest.overrides;
+            } catch (Exception e) {
+                // Parsing is repeated while fetching the manifest, which reports the failure to the user.
+                logger.logStackTrace("Failed to read the manifest from the archive!", e);
+            }
+        }
+
+        Path overrides = archiveFileSystem.getPath(overridesDirectory);
+        if (Files.isDirectory(overrides)) {
+            try (Stream<Path> files = Files.walk(overrides)) {
+                files.filter(Files::isRegularFile).forEach((File) -> overrideFiles.add(overrides.relativize(File).toString()));
+            }
         }
+        logger.log("Archive contains " + RandomUtils.intGrammar(overrideFiles.size(), " file", " files", true) + " in the overrides.");
+        if (overrideFiles.isEmpty()) return;
+
+        // Overrides are extracted straight to the working directory in the background, CDLTemp is used only for staging changed files.
+        String finalOverridesDirectory = overridesDirectory;
+        overridesExtraction = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ZipExtractor.extract(archive, finalOverridesDirectory, WORKPATH, CDLTemp, ARD.getOverridesConflictPolicy(), ARD.getIOThreads());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, (Task) -> {
+            Thread thread = new Thread(Task, "CDL-Overrides-Extraction");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Used to find a CurseForge modpack zip in the working directory, recognized by the manifest file in the root of the archive.
+     * @return {@link Path} to the first archive with a manifest file (by name), or {@code null} if none was found.
+     */
+    private static @Nullable Path findCFPackArchive() {
+        try (Stream<Path> WorkPathDir = Files.list(WORKPATH)) {
+            for (Path File : WorkPathDir.filter((File) -> File.getFileName().toString().endsWith(".zip") && Files.isRegularFile(File)).sorted().toList()) {
+                try (ZipFile zipFile = new ZipFile(File.toFile())) {
+                    if (Objects.nonNull(zipFile.getEntry("manifest.json"))) return File;
+                } catch (IOException e) {
+                    logger.warn("Failed to read the archive \"" + File.toAbsolutePath() + "\" while looking for CurseForge modpacks! " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.logStackTrace("Failed to list the working directory while looking for CurseForge modpacks!", e);
+        }
+        return null;
     }
 
     /**
@@ -222,19 +341,29 @@ public final class CatDownloader {
         logger.log("Fetching data from the manifest file and translating it to CDLInstance Format...");
         try {
             switch (ARD.getCurrentMode()) {
-                case "modrinth" -> CDLInstanceData.importModrinthPack(gson.fromJson(Files.readString(manifestFile), MRIndex.class));
-                case "cf-instance" -> CDLInstanceData.importCFInstance(gson.fromJson(Files.readString(manifestFile), CFMinecraftInstance.class));
-                case "cf-pack" -> CDLInstanceData.importCFPack(gson.fromJson(Files.readString(manifestFile), CFManifest.class), false);
+                case "modrinth" -> CDLInstanceData.importModrinthPack(ManifestReader.readModrinthIndex(manifestFile));
+                case "cf-instance" -> CDLInstanceData.importCFInstance(ManifestReader.readCFInstance(manifestFile));
+                case "cf-pack" -> CDLInstanceData.importCFPack((Objects.nonNull(archivedCFManifest))? archivedCFManifest: ManifestReader.readCFManifest(manifestFile), false);
                 default -> throw new RuntimeException("Unknown mode passed mode validation step! This shouldn't happen. Mode -> " + ARD.getCurrentMode());
             }
         } catch (Exception e) {
             System.out.println("Failed to parse data from the manifest.");
             logger.logStackTrace("Failed to parse or interpret Manifest File.", e);
             RandomUtils.closeTheApp(1);
+        } finally {
+            if (Objects.nonNull(archiveFileSystem)) {
+                try {
+                    archiveFileSystem.close();
+                } catch (IOException e) {
+                    logger.logStackTrace("Exception thrown while closing the modpack archive!", e);
+                }
+            }
         }
 
         logger.log("Data fetched successfully.");
 
+        if (ARD.isPackMode()) resolveCFPackFiles();
+
         parseCachedInstanceFile();
 
         logger.print("Installing modpack " +
@@ -284,72 +413,116 @@ public final class CatDownloader {
 
     }
 
+    /**
+     * Used to resolve all CurseForge files of the pack, before the cached version of the CDLInstance is looked for.
+     * Resolved files are taken from the resolution cache when caches are enabled, so only new files are requested through the API.
+     */
+    private static void resolveCFPackFiles() {
+        if (ARD.isCacheEnabled()) {
+            CFResolutions = CFResolutionCache.load(Path.of(ARD.getCachePath(), CFResolutionCache.FILE_NAME));
+            try {
+                HttpResponseCache.setCachePath(Path.of(ARD.getCachePath()));
+            } catch (IOException e) {
+                logger.logStackTrace("Exception thrown while creating HTTP response cache! Responses from the API are not going to be cached.", e);
+            }
+        } else {
+            logger.warn("Caches are disabled! Resolved CurseForge files are not going to be cached in this session.");
+        }
+
+        logger.print("Gathering data about mods present in the modpack...");
+        try (CFModResolver resolver = new CFModResolver(ARD.getResolverThreads(), ARD.getCFRequestRate())) {
+            int requested = resolver.resolve(CDLInstanceData, CFResolutions);
+            logger.print("Finished gathering data about mods, " + RandomUtils.intGrammar(requested, " mod", " mods", true) + " had to be requested from the API.");
+            logger.log("HTTP response cache: " + HttpResponseCache.getStatistics() + ".");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted while gathering data about mods!", e);
+        }
+    }
+
+    /**
+     * Used to fill missing hash values for the main CDLInstanceData from the binary cache.
+     * Only files present in the main data set are decoded from the cache.
+     * @param cache {@link BinaryInstanceCache} to read hashes from.
+     * @throws IllegalStateException when updating of the main data set fails, and execution can't continue.
+     */
+    private static void parseBinaryCachedInstanceFile(BinaryInstanceCache cache) throws IllegalStateException {
+        long StartingTime = System.nanoTime();
+        if (!CDLInstanceData.equals(cache.getInstanceData(), true)) {
+            logger.log("Cached CDLInstance was made for different details of the pack. Entries still matching the main data set will be reconciled.");
+        }
+
+        int updated;
+        try {
+            updated = CDLInstanceData.reconcileHashes(cache::find);
+        } catch (Exception e) {
+            throw new IllegalStateException("Exception thrown while updating hash information of the main data set. Execution can't continue.", e);
+        }
+
+        logger.log("Removed " + RandomUtils.intGrammar(Math.max(cache.getFileCount() - updated, 0),  " mod", " mods", true) + " from the cached instance file due to them missing from the main data set.");
+        logger.log("Updating information for " + updated + " out of " + RandomUtils.intGrammar(CDLInstanceData.files.length,  " mod.", " mods.", true));
+        logger.log("Binary cache loaded in " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - StartingTime) + "µs.");
+    }
+
     /**
      * Used to parse Cached Instance File and fill missing hash values for the main CDLInstanceData.
+     * Hashes are reconciled per file, so changes in the pack only drop cached entries of the files that changed.
      * @apiNote This method is CDL exclusive! Instance files are going to be used properly in the launcher version.
      */
     private static void parseCachedInstanceFile() {
-        if (!ARD.isCacheEnabled() || ARD.isPackMode()) {
-            if (ARD.isPackMode()) {
-                logger.warn("Caches are not-available in the CF-Pack mode! Looking for cached versions of the CDLInstance will be skipped.");
-            } else {
-                logger.warn("Caches are disabled! Looking for cached version of the CDLInstance will be skipped.");
-            }
+        if (!ARD.isCacheEnabled()) {
+            logger.warn("Caches are disabled! Looking for cached version of the CDLInstance will be skipped.");
             return;
         }
 
         logger.log("Looking for cached version of the CDLInstance...");
+        try {
+            BinaryInstanceCache cache = getCacheStore().open(CDLInstanceData);
+            if (Objects.nonNull(cache)) {
+                parseBinaryCachedInstanceFile(cache);
+                return;
+            }
+            logger.log("Cache store doesn't have an entry for this instance. Looking for caches made by older versions...");
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while loading cache entry of CDLInstance! Looking for caches made by older versions instead.", e);
+        }
+
+        // Caches made by older versions are kept in a single file for all instances, and are removed once the store entry is saved.
+        Path binaryCachedPath = Path.of(ARD.getCachePath(), BinaryInstanceCache.FILE_NAME);
+        if (Files.exists(binaryCachedPath)) {
+            try {
+                parseBinaryCachedInstanceFile(BinaryInstanceCache.open(binaryCachedPath));
+                return;
+            } catch (IllegalStateException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while loading binary cache of CDLInstance! Looking for the JSON cache instead.", e);
+            }
+        }
+
         try {
             Path cachedPath = Path.of(ARD.getCachePath(), "CDL-Instance-cache.json");
             if (Files.exists(cachedPath)) {
                 CDLInstance cachedCDLInstance = CDLInstance.parseJson(cachedPath);
 
-                if (!CDLInstanceData.equals(cachedCDLInstance, true)) {
+                if (!CDLInstanceData.cdlFormatVersion.equals(cachedCDLInstance.cdlFormatVersion)) {
                     FileUtils.delete(cachedPath);
-                    if (CDLInstanceData.cdlFormatVersion.equals(cachedCDLInstance.cdlFormatVersion)) {
-                        throw new IllegalArgumentException("Cached CDLInstance json isn't for the pack currently being installed, or the details for the pack has changed. Cache file will be regenerated at the end of the sync process.");
-                    } else {
-                        throw new FormatVersionMismatchException("Cached CDLInstance json is different version than currently supported! Cache file will be regenerated at the end of the sync process.");
-                    }
+                    throw new FormatVersionMismatchException("Cached CDLInstance json is different version than currently supported! Cache file will be regenerated at the end of the sync process.");
                 }
 
-                int length = cachedCDLInstance.files.length;
-
-                // Dropping any mods that aren't present in the current Instance data.
-                cachedCDLInstance.files = Arrays.stream(cachedCDLInstance.files).filter(
-                    (cachedFile) -> Arrays.stream(CDLInstanceData.files).anyMatch(
-                        (file) ->
-                            Objects.equals(cachedFile.fileLength, file.fileLength) &&
-                            Objects.equals(cachedFile.fileName, file.fileName) &&
-                            ((Objects.isNull(file.path))? Objects.equals(cachedFile.path, "mods/" + file.fileName): Objects.equals(cachedFile.path, file.path)) &&
-                            Objects.equals(cachedFile.downloadURL, file.downloadURL)
-                        )
-                ).toList().toArray(new CDLInstance.ModFile[]{});
-
-                int removedCount = length - cachedCDLInstance.files.length;
-
-                logger.log("Removed " + RandomUtils.intGrammar(removedCount,  " mod", " mods", true) + " from the cached instance file due to them missing from the main data set.");
-                logger.log("Updating information for " + cachedCDLInstance.files.length + " out of " + RandomUtils.intGrammar(CDLInstanceData.files.length,  " mod.", " mods.", true));
+                int length = (int) Arrays.stream(cachedCDLInstance.files).filter(Objects::nonNull).count();
 
                 // Another try block because if something goes wrong here, it is not safe to continue execution.
+                int updated;
                 try {
-                    for (CDLInstance.ModFile file : CDLInstanceData.files) {
-                        for (CDLInstance.ModFile cachedFile: cachedCDLInstance.files) {
-                            if (
-                                Objects.nonNull(cachedFile) &&
-                                Objects.equals(file.fileLength, cachedFile.fileLength) &&
-                                Objects.equals(file.fileName, cachedFile.fileName) &&
-                                ((Objects.isNull(file.path))? Objects.equals(cachedFile.path, "mods/" + file.fileName): Objects.equals(cachedFile.path, file.path)) &&
-                                Objects.equals(file.downloadURL, cachedFile.downloadURL)
-                            ) {
-                                file.hashes = cachedFile.hashes;
-                                break;
-                            }
-                        }
-                    }
+                    updated = CDLInstanceData.reconcileHashes(cachedCDLInstance.getFileIndex()::get);
                 } catch (Exception e) {
                     throw new IllegalStateException("Exception thrown while updating hash information of the main data set. Execution can't continue.", e);
                 }
+
+                logger.log("Removed " + RandomUtils.intGrammar(Math.max(length - updated, 0),  " mod", " mods", true) + " from the cached instance file due to them missing from the main data set.");
+                logger.log("Updating information for " + updated + " out of " + RandomUtils.intGrammar(CDLInstanceData.files.length,  " mod.", " mods.", true));
             } else {
                 logger.log("Couldn't find cached version of the CDLInstance. Verification will be performed from the source.");
             }
@@ -365,36 +538,47 @@ public final class CatDownloader {
      * Increases the speed of the instance verification process.
      */
     private static void createCacheFile() {
-        if (!ARD.isCacheEnabled() || ARD.isPackMode()) {
-            if (ARD.isPackMode()) {
-                logger.warn("Caches are not-available in the CF-Pack mode! Cache file is not going to be generated in this session.");
-            } else {
-                logger.warn("Caches are disabled! Cache file is not going to be generated in this session.");
-            }
+        if (!ARD.isCacheEnabled()) {
+            logger.warn("Caches are disabled! Cache file is not going to be generated in this session.");
             return;
         }
 
-        try {
-            Path cachedPath = Path.of(ARD.getCachePath(), "CDL-Instance-cache.json");
-            if (Files.notExists(cachedPath)) {
-                logger.log("Cache file not found! Creating required path for the Cache file...");
-                FileUtils.createRequiredPathToAFile(cachedPath);
-                Files.createFile(cachedPath);
+        if (Objects.nonNull(CFResolutions)) {
+            try {
+                CFResolutions.save(Path.of(ARD.getCachePath(), CFResolutionCache.FILE_NAME));
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while saving resolution cache!", e);
             }
+        }
 
+        InstanceCacheStore store = null;
+        try {
             logger.log("Saving cache data...");
-            Files.writeString(cachedPath, CDLInstanceData.toString(), StandardOpenOption.TRUNCATE_EXISTING);
+            store = getCacheStore();
+            store.write(CDLInstanceData);
+            // Single file caches are only read for compatibility with caches made by older versions.
+            Files.deleteIfExists(Path.of(ARD.getCachePath(), BinaryInstanceCache.FILE_NAME));
+            Files.deleteIfExists(Path.of(ARD.getCachePath(), "CDL-Instance-cache.json"));
             logger.log("Cache data has been saved.");
         } catch (Exception e) {
             logger.logStackTrace("Exception thrown while saving Cache data!", e);
             try {
-                Files.deleteIfExists(Path.of(ARD.getCachePath(), "CDL-Instance-cache.json"));
+                if (Objects.nonNull(store)) store.invalidate(CDLInstanceData);
             } catch (Exception e2) {
                 logger.logStackTrace("Exception thrown while deleting cache file after main exception! Was the original exception IO Error? Is the path write-protected?", e);
             }
         }
     }
 
+    /**
+     * Used to get the cache store for the instance currently being installed.
+     * @return {@link InstanceCacheStore} in the cache directory.
+     * @throws IOException when IO Exception occurs while creating the store directory.
+     */
+    private static InstanceCacheStore getCacheStore() throws IOException {
+        return new InstanceCacheStore(Path.of(ARD.getCachePath()), Path.of(ARD.getWorkingDir()), ARD.getCurrentMode());
+    }
+
     private static class Services {
         private static final LoggerCustom logger = new LoggerCustom("Main.Services");
 
@@ -443,6 +627,15 @@ public final class CatDownloader {
          */
         public static void postInit() throws IOException {
             logger.postInit();
+            if (ARD.isEventLogActive()) {
+                EventLog.open(Path.of(ARD.getLogPath()));
+                logger.log("Event log enabled at \"" + Path.of(ARD.getLogPath(), EventLog.FILE_NAME).toAbsolutePath() + "\".");
+            }
+
+            // Keep-alive connections are reused by the download and resolver threads, default pool keeps only 5 per host.
+            if (Objects.isNull(System.getProperty("http.maxConnections"))) {
+                System.setProperty("http.maxConnections", String.valueOf(Math.max(ARD.getThreads(), ARD.getResolverThreads())));
+            }
 
             logger.log("Checking network connection...");
             if (ARD.isBypassNetworkCheckActive()) {
@@ -26,20 +26,26 @@ package com.kanzaji.catdownloaderlegacy;
 
 import com.kanzaji.catdownloaderlegacy.data.CDLInstance;
 import com.kanzaji.catdownloaderlegacy.data.CFManifest;
+import com.kanzaji.catdownloaderlegacy.data.InstalledFilesLedger;
+import com.kanzaji.catdownloaderlegacy.loggers.EventLog;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.DirectorySnapshot;
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
 import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
 import com.kanzaji.catdownloaderlegacy.utils.SettingsManager;
+import com.kanzaji.catdownloaderlegacy.utils.ZipExtractor;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.rmi.UnexpectedException;
 import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Stream;
 
 import static com.kanzaji.catdownloaderlegacy.CatDownloader.WORKPATH;
 
@@ -51,8 +57,13 @@ public class SyncManager {
     private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
     private static Path CDLTemp;
     private final CDLInstance CDLInstanceData;
+    private final CompletableFuture<ZipExtractor.Result> overridesExtraction;
+    private final Set<String> overrideFiles;
     private ExecutorService downloadExecutor;
     private ExecutorService verificationExecutor;
+    private DirectorySnapshot snapshot;
+    private InstalledFilesLedger ledger;
+    private Path ledgerPath;
     private final HashSet<Integer> missing = new HashSet<>();
     private final HashSet<Integer> corrupted = new HashSet<>();
     private final HashSet<String> removed = new HashSet<>();
@@ -61,13 +72,26 @@ public class SyncManager {
     private final HashSet<String> failedRemovals = new HashSet<>();
     private final HashSet<Integer> IgnoredVerification = new HashSet<>();
     private final HashSet<Integer> IgnoredRemoval = new HashSet<>();
+    private final HashMap<String, Integer> blackListIndex = new HashMap<>();
 
     /**
      * Constructor of SyncManager Object.
      * @param CDLInstanceData CDLInstance with data about the instance.
      */
     public SyncManager(CDLInstance CDLInstanceData) {
+        this(CDLInstanceData, null, Set.of());
+    }
+
+    /**
+     * Constructor of SyncManager Object, for instances with overrides extracted in the background.
+     * @param CDLInstanceData CDLInstance with data about the instance.
+     * @param OverridesExtraction {@link CompletableFuture} of the extraction of the overrides to the working directory, awaited during the cleanup. Nullable.
+     * @param OverrideFiles Paths of the files provided by the overrides, relative to the working directory.
+     */
+    public SyncManager(CDLInstance CDLInstanceData, @Nullable CompletableFuture<ZipExtractor.Result> OverridesExtraction, @NotNull Set<String> OverrideFiles) {
         this.CDLInstanceData = CDLInstanceData;
+        this.overridesExtraction = OverridesExtraction;
+        this.overrideFiles = Objects.requireNonNull(OverrideFiles);
     }
 
     /**
@@ -80,14 +104,25 @@ public class SyncManager {
         Objects.requireNonNull(CDLInstanceData, "CDLInstanceData is null!");
 
         verificationExecutor = Executors.newFixedThreadPool(ARD.getThreads());
+        FileVerUtils.setReadConcurrency(ARD.getIOThreads());
         downloadExecutor = Executors.newFixedThreadPool(ARD.getThreads());
         CDLTemp = Path.of(WORKPATH.toString(), "CDLTemp");
+        for (int i = 0; i < SettingsManager.ModBlackList.size(); i++) {
+            blackListIndex.putIfAbsent(SettingsManager.ModBlackList.get(i), i);
+        }
 
         logger.log("Running GC to clear out memory before running synchronization process...");
         RandomUtils.runGCL();
         logger.print("Starting synchronization process!");
         System.out.println("---------------------------------------------------------------------");
 
+        snapshot = takeSnapshot();
+        if (ARD.isCacheEnabled()) {
+            ledgerPath = InstalledFilesLedger.getLedgerPath(Path.of(ARD.getCachePath()), WORKPATH);
+            ledger = InstalledFilesLedger.load(ledgerPath, WORKPATH);
+        } else {
+            logger.warn("Caches are disabled! Ledger of installed files will not be used, only the mods folder will be cleaned up.");
+        }
         verifyInstalledMods();
         printVerificationResults();
         RandomUtils.runGCL();
@@ -97,6 +132,7 @@ public class SyncManager {
         downloadRequiredMods();
         RandomUtils.runGCL();
 
+        updateLedger();
         printStatistics();
 
         cleanup();
@@ -104,18 +140,36 @@ public class SyncManager {
         System.out.println("Synchronization of the profile finished!");
     }
 
+    /**
+     * This method is used internally by {@link SyncManager} to take a snapshot of all directories used by the synchronization.
+     * Snapshot is shared by the verification, removal and download phases, to avoid probing every file separately.
+     * @return {@link DirectorySnapshot} of the directories with instance files and mods folder.
+     * @throws IOException when listing of any of the directories fails.
+     */
+    private @NotNull DirectorySnapshot takeSnapshot() throws IOException {
+        Set<Path> directories = new LinkedHashSet<>();
+        directories.add(Path.of(WORKPATH.toString(), "mods"));
+        for (CDLInstance.ModFile mod : CDLInstanceData.files) {
+            directories.add(FileUtils.getParentFolder(Path.of(WORKPATH.toString(), mod.getPath())));
+        }
+        return DirectorySnapshot.take(directories);
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to query verification and lookup tasks for mods in the specified Instance. Respects Blacklist from the Settings File.
      * @throws InterruptedException when Executor is interrupted.
      * @throws TimeoutException if the Executor doesn't finish before 24-hours pass.
      */
     private void verifyInstalledMods() throws InterruptedException, TimeoutException {
-        List<Future<Integer[]>> verificationResults = new LinkedList<>();
+        List<CompletableFuture<Integer[]>> verificationResults = new ArrayList<>();
+        List<Integer> verificationQueue = new ArrayList<>();
         System.out.println("Looking for already installed mods...");
         logger.log("Requesting of lookups for installed mods and their verification started.");
+        long StartingTime = System.nanoTime();
+        FileVerUtils.resetReadStatistics();
+        VerificationPipeline pipeline = new VerificationPipeline(ARD.getIOThreads(), ARD.getHashThreads());
 
         for (int index = 0; index < CDLInstanceData.files.length; index++) {
-            if (ARD.isPackMode()) CDLInstanceData.gatherCFModInformation(index);
             CDLInstance.ModFile mod = CDLInstanceData.files[index];
 
             if (Objects.equals(mod.fileName, "CF-PACK_MOD")) {
@@ -123,27 +177,73 @@ public class SyncManager {
                 continue;
             }
 
-            if (SettingsManager.ModBlackList.contains(mod.fileName)) {
+            if (blackListIndex.containsKey(mod.fileName)) {
                 logger.warn("Skipping verification of  " + mod.fileName + " because its present on the blacklist!");
                 IgnoredVerification.add(index);
                 continue;
             }
 
-            logger.log("Lookup and verification of file " + mod.fileName + " has been requested.");
-            verificationResults.add(verificationExecutor.submit(CDLInstanceData.getVerificationTask(index)));
+            // Sorting requires the entire queue, so the submission is delayed until all files are known.
+            if (ARD.shouldSortByLocality()) {
+                verificationQueue.add(index);
+                continue;
+            }
+
+            logger.log(() -> "Lookup and verification of file " + mod.fileName + " has been requested.");
+            verificationResults.add(CDLInstanceData.getVerificationTask(index, snapshot, ledger, pipeline, verificationExecutor));
         }
 
+        if (ARD.shouldSortByLocality()) {
+            sortByLocality(verificationQueue);
+            for (Integer index : verificationQueue) {
+                logger.log(() -> "Lookup and verification of file " + CDLInstanceData.files[index].fileName + " has been requested.");
+                verificationResults.add(CDLInstanceData.getVerificationTask(index, snapshot, ledger, pipeline, verificationExecutor));
+            }
+        }
+
+        try {
+            // Exceptions of the tasks are handled while decoding the results.
+            CompletableFuture.allOf(verificationResults.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> null).get(1, TimeUnit.DAYS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected exception while waiting for the verification!", e);
+        } catch (TimeoutException e) {
+            logger.critical("Verification takes over a day!");
+            throw new TimeoutException("Verification takes over a day!");
+        } finally {
+            pipeline.close();
+        }
         RandomUtils.waitForExecutor(verificationExecutor, 1, TimeUnit.DAYS, "Verification takes over a day!");
+        logger.summary("Verification finished! Read statistics" + ((ARD.isDirectIOActive())? " (Direct I/O enabled):": ":"));
+        FileVerUtils.logReadStatistics(System.nanoTime() - StartingTime);
         decodeVerificationResults(verificationResults);
     }
 
+    /**
+     * This method is used internally by {@link SyncManager} to sort indexes of the files by their location on the disk.
+     * Files are sorted by the inode number, then by the directory and the name. Missing files are placed at the beginning of the queue.
+     * @param verificationQueue List with indexes of the files to sort.
+     */
+    private void sortByLocality(@NotNull List<Integer> verificationQueue) {
+        logger.log("Sorting " + RandomUtils.intGrammar(verificationQueue.size(), " file", " files", true) + " by their location on the disk...");
+        Map<Integer, Long> inodes = new HashMap<>();
+        for (Integer index : verificationQueue) {
+            inodes.put(index, FileUtils.getInode(Path.of(WORKPATH.toString(), CDLInstanceData.files[index].getPath())));
+        }
+
+        verificationQueue.sort(
+            Comparator.<Integer>comparingLong(inodes::get)
+            .thenComparing((index) -> FileUtils.getParentFolderAsString(Path.of(WORKPATH.toString(), CDLInstanceData.files[index].getPath())))
+            .thenComparing((index) -> CDLInstanceData.files[index].fileName)
+        );
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to decode results from the verification tasks.
      * @param verificationResults A list with Future objects from the executor.
      * @throws NullPointerException when verificationResults are null.
      */
     @SuppressWarnings("ForLoopReplaceableByForEach")
-    private void decodeVerificationResults(@NotNull List<Future<Integer[]>> verificationResults) {
+    private void decodeVerificationResults(@NotNull List<? extends Future<Integer[]>> verificationResults) {
         Objects.requireNonNull(verificationResults);
         // LinkedList<>#forEach() and enhanced for use Iterators.
         // For some reason, I got issues with random NullPointerExceptions while using them in the old SyncManager.
@@ -157,9 +257,9 @@ public class SyncManager {
                     throw new IllegalStateException("Results from the verification are not in correct schema! => " + Arrays.toString(results));
                 }
                 switch (results[1]) {
-                    case 0 -> logger.log("File \"" + mod.path + "\" has been verified successfully.");
+                    case 0 -> logger.log(() -> "File \"" + mod.path + "\" has been verified successfully.");
                     case 1 -> {
-                        logger.log("File \"" + mod.path + "\" not found!");
+                        logger.log(() -> "File \"" + mod.path + "\" not found!");
                         missing.add(results[0]);
                     }
                     case -1 -> {
@@ -172,7 +272,9 @@ public class SyncManager {
                 if (Objects.equals(e.getClass(),ExecutionException.class)) {
                     Throwable e2 = e.getCause();
                     logger.logStackTrace("Exception found in the verification results!", e2.getCause());
-                    failedVerifications.add(Integer.parseInt(e.getMessage().substring(30, e.getMessage().indexOf(";"))));
+                    int Index = Integer.parseInt(e.getMessage().substring(30, e.getMessage().indexOf(";")));
+                    failedVerifications.add(Index);
+                    if (EventLog.isEnabled()) EventLog.emit("verify", Index, CDLInstanceData.files[Index].path, null, null, null, "error");
                 } else {
                     throw new RuntimeException("Exception thrown while gathering results from the verification!", e);
                 }
@@ -228,8 +330,8 @@ public class SyncManager {
 
         downloads.forEach((index) -> {
             CDLInstance.ModFile mod = CDLInstanceData.files[index];
-            logger.log("Downloading of " + mod.fileName + " has been requested.");
-            downloadTasks.add(CDLInstanceData.getDownloadTask(index));
+            logger.log(() -> "Downloading of " + mod.fileName + " has been requested.");
+            downloadTasks.add(CDLInstanceData.getDownloadTask(index, snapshot));
         });
 
         List<Future<Integer[]>> downloadResults = new LinkedList<>(downloadExecutor.invokeAll(downloadTasks));
@@ -254,7 +356,7 @@ public class SyncManager {
                 }
                 CDLInstance.ModFile mod = CDLInstanceData.files[results[0]];
                 switch (results[1]) {
-                    case 0 -> logger.log("File \"" + mod.path + "\" has been downloaded successfully.");
+                    case 0 -> logger.log(() -> "File \"" + mod.path + "\" has been downloaded successfully.");
                     case -1 -> {
                         logger.error("File \"" + mod.path + "\" has failed to download correctly!");
                         failedDownloads.add(results[0]);
@@ -265,7 +367,9 @@ public class SyncManager {
                 if (Objects.equals(e.getClass(),ExecutionException.class)) {
                     Throwable e2 = e.getCause();
                     logger.logStackTrace("Exception found in the download results!", e2.getCause());
-                    failedDownloads.add(Integer.parseInt(e2.getMessage().substring(0, e2.getMessage().indexOf(";")-1)));
+                    int Index = Integer.parseInt(e2.getMessage().substring(0, e2.getMessage().indexOf(";")-1));
+                    failedDownloads.add(Index);
+                    if (EventLog.isEnabled()) EventLog.emit("download", Index, CDLInstanceData.files[Index].path, null, null, null, "error");
                 } else {
                     throw new RuntimeException("Exception thrown while gathering results from the downloads!", e);
                 }
@@ -291,37 +395,74 @@ public class SyncManager {
 
     /**
      * This method is used internally by {@link SyncManager} to remove any mods that are not present in the mod list of the instance specified in the constructor. Respects Blacklist from the Settings File.
+     * Files designated to removal are found with use of hashed indexes, and deleted in parallel.
+     * @throws IOException when listing of the mods folder fails.
+     * @throws InterruptedException when Executor is interrupted.
+     * @throws TimeoutException if the Executor doesn't finish before 24-hours pass.
      */
-    private void removeRemovedMods() throws IOException {
+    private void removeRemovedMods() throws IOException, InterruptedException, TimeoutException {
         logger.log("Looking for removed mods...");
-        try (Stream<Path> pathStream = Files.list(Path.of(WORKPATH.toString(), "mods"))) {
-            pathStream.forEach(File -> {
-                String FileName = File.getFileName().toString();
-                if (Arrays.stream(CDLInstanceData.files).noneMatch((mod) ->
-                        Objects.equals(mod.fileName, FileName) &&
-                        (Objects.isNull(mod.path) || mod.path.startsWith("mods"))
-                )) {
-                    // This checks if the mod is in the temp overrides folder extracted from the zip.
-                    // Used only for modrinth for now. Will be used later on by CF Zip Import
-                    if (Files.exists(Path.of(CDLTemp.toString(), RandomUtils.removeCommonPart(WORKPATH.toAbsolutePath().toString(), File.toAbsolutePath().toString())))) return;
-
-                    int index = SettingsManager.ModBlackList.indexOf(FileName);
-                    if (index >= 0) {
-                        logger.warn("Found removed mod " + FileName + ", but its present on the blacklist. Skipping!");
-                        IgnoredRemoval.add(index);
-                        return;
-                    }
+        Path mods = Path.of(WORKPATH.toString(), "mods");
+        Set<Path> candidates = new LinkedHashSet<>();
 
-                    logger.log("Found removed mod " + File.getFileName() + "! Deleting...");
-                    try {
-                        FileUtils.delete(File);
-                        removed.add(File.getFileName().toString());
-                    } catch (IOException e) {
-                        logger.logStackTrace("Failed deleting " + File.getFileName() + "!", e);
-                        failedRemovals.add(File.getFileName().toString());
-                    }
+        if (snapshot.exists(mods)) {
+            Set<String> instanceMods = new HashSet<>(CDLInstanceData.files.length * 2);
+            for (CDLInstance.ModFile mod : CDLInstanceData.files) {
+                if (Objects.isNull(mod.path) || mod.path.startsWith("mods")) instanceMods.add(mod.fileName);
+            }
+
+            for (Path File : snapshot.list(mods)) {
+                if (!instanceMods.contains(File.getFileName().toString())) candidates.add(File.toAbsolutePath().normalize());
+            }
+        }
+
+        // Files installed by previous syncs in any folder, that are no longer in the instance.
+        if (Objects.nonNull(ledger)) {
+            Set<String> instancePaths = new HashSet<>(CDLInstanceData.files.length * 2);
+            for (CDLInstance.ModFile mod : CDLInstanceData.files) instancePaths.add(mod.getFileKey().path());
+            for (String FilePath : ledger.getPaths()) {
+                if (instancePaths.contains(FilePath)) continue;
+                Path File = Path.of(WORKPATH.toString(), FilePath).toAbsolutePath().normalize();
+                InstalledFilesLedger.Entry entry = Objects.requireNonNull(ledger.get(FilePath));
+                BasicFileAttributes attributes = snapshot.getAttributes(File);
+                if (Objects.isNull(attributes)) {
+                    ledger.remove(FilePath);
+                } else if (!entry.isUnchanged(attributes)) {
+                    logger.warn("File \"" + FilePath + "\" is no longer in the instance, but it was modified since it was installed. Skipping!");
+                    ledger.remove(FilePath);
+                } else {
+                    candidates.add(File);
                 }
-            });
+            }
+        }
+
+        List<Path> removals = new ArrayList<>();
+        for (Path File : candidates) {
+            String FileName = File.getFileName().toString();
+
+            // This checks if the mod is provided by the overrides of the zip, which are extracted to the working directory during the sync.
+            // Used for .mrpack archives and CurseForge zips.
+            if (overrideFiles.contains(getRelativePath(File))) continue;
+
+            Integer index = blackListIndex.get(FileName);
+            if (Objects.nonNull(index)) {
+                logger.warn("Found removed mod " + FileName + ", but its present on the blacklist. Skipping!");
+                IgnoredRemoval.add(index);
+                continue;
+            }
+
+            logger.log(() -> "Found removed mod " + getRelativePath(File) + "! Requesting deletion...");
+            removals.add(File);
+        }
+
+        if (!removals.isEmpty()) {
+            ExecutorService removalExecutor = Executors.newFixedThreadPool(Math.min(ARD.getIOThreads(), removals.size()));
+            List<Future<Integer[]>> removalResults = new ArrayList<>(removals.size());
+            for (int i = 0; i < removals.size(); i++) {
+                removalResults.add(removalExecutor.submit(getRemovalTask(i, removals.get(i))));
+            }
+            RandomUtils.waitForExecutor(removalExecutor, 1, TimeUnit.DAYS, "Removals take over a day!");
+            decodeRemovalResults(removals, removalResults);
         }
 
         if (!removed.isEmpty()) {
@@ -332,36 +473,124 @@ public class SyncManager {
         System.out.println("---------------------------------------------------------------------");
     }
 
+    /**
+     * This method is used internally by {@link SyncManager} to get a path of the file relative to the working directory, in the format used by the instance files.
+     * @param File {@link Path} to a file in the working directory.
+     * @return {@link String} with the relative path, with forward slashes.
+     */
+    private static @NotNull String getRelativePath(@NotNull Path File) {
+        return WORKPATH.toAbsolutePath().normalize().relativize(File.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to record the current state of the instance files in the ledger, and save it.
+     * Files that failed verification or download are dropped from the ledger, files ignored by the blacklist keep their previous entries.
+     */
+    private void updateLedger() {
+        if (Objects.isNull(ledger)) return;
+        for (int index = 0; index < CDLInstanceData.files.length; index++) {
+            if (IgnoredVerification.contains(index)) continue;
+            CDLInstance.ModFile mod = CDLInstanceData.files[index];
+            if (Objects.equals(mod.fileName, "CF-PACK_MOD")) continue;
+
+            String FilePath = mod.getFileKey().path();
+            BasicFileAttributes attributes = snapshot.getAttributes(Path.of(WORKPATH.toString(), FilePath));
+            if (failedDownloads.contains(index) || failedVerifications.contains(index) || Objects.isNull(attributes)) {
+                ledger.remove(FilePath);
+            } else {
+                ledger.put(FilePath, attributes, mod.hashes);
+            }
+        }
+
+        try {
+            ledger.save(ledgerPath);
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while saving the ledger! Files removed from the instance might not be cleaned up in the next sync.", e);
+        }
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to get a Removal task for the specified file.
+     * @param index Index of the file in the list of removals.
+     * @param File {@link Path} to the file designated to removal.
+     * @return Callable to execute with removal routine for specified file.
+     * <h3>Returns:</h3>
+     * <ul>
+     * <li><b>0</b> if file was deleted successfully.</li>
+     * </ul>
+     */
+    private @NotNull Callable<Integer[]> getRemovalTask(int index, @NotNull Path File) {
+        return () -> {
+            try {
+                FileUtils.delete(File);
+                snapshot.remove(File);
+                return new Integer[]{index, 0};
+            } catch (Exception e) {
+                throw new UnexpectedException(String.valueOf(index), new UnexpectedException("Exception was thrown while deleting a file \"" + File + "\"!", e));
+            }
+        };
+    }
+
+    /**
+     * This method is used internally by {@link SyncManager} to decode results from the removal tasks.
+     * @param removals A list with files designated to removal, indexed by the results.
+     * @param removalResults A list with Future objects from the executor.
+     * @throws NullPointerException when any of the arguments are null.
+     */
+    private void decodeRemovalResults(@NotNull List<Path> removals, @NotNull List<Future<Integer[]>> removalResults) {
+        Objects.requireNonNull(removals);
+        Objects.requireNonNull(removalResults);
+        for (Future<Integer[]> Future : removalResults) {
+            try {
+                Integer[] results = Future.get();
+                if (!Objects.equals(results.length, 2)) {
+                    throw new IllegalStateException("Results from the removals are not in correct schema! => " + Arrays.toString(results));
+                }
+                String FilePath = getRelativePath(removals.get(results[0]));
+                if (results[1] != 0) throw new IllegalStateException("Invalid value in the removal results! => " + Arrays.toString(results));
+                removed.add(FilePath);
+                if (Objects.nonNull(ledger)) ledger.remove(FilePath);
+                if (EventLog.isEnabled()) EventLog.emit("remove", null, FilePath, null, null, null, "removed");
+            } catch (Exception e) {
+                if (Objects.equals(e.getClass(), ExecutionException.class) && e.getCause() instanceof UnexpectedException e2) {
+                    String FilePath = getRelativePath(removals.get(Integer.parseInt(e2.getMessage().substring(0, e2.getMessage().indexOf(";")))));
+                    logger.logStackTrace("Failed deleting " + FilePath + "!", e2.getCause());
+                    failedRemovals.add(FilePath);
+                    if (EventLog.isEnabled()) EventLog.emit("remove", null, FilePath, null, null, null, "failed");
+                } else {
+                    throw new RuntimeException("Exception thrown while gathering results from the removals!", e);
+                }
+            }
+        }
+    }
+
     /**
      * This method is used internally by {@link SyncManager} to clean up any temporary files and directories created by the app.
      */
     private void cleanup() {
         try {
-            if (Files.exists(CDLTemp)) {
-                logger.log("Found CDLTemp folder in the working directory!");
-                Path overrides = Path.of(CDLTemp.toString(), CDLInstanceData.modpackData.overrides);
-                if (Files.notExists(overrides)) throw new NoSuchFileException("No overrides folder in the CDLTemp!");
-
-                logger.log("Moving overrides content to the Working Directory...");
-                try (Stream<Path> dirListing = Files.list(overrides)) {
-                    dirListing.forEach((File) -> {
-                        try {
-                            FileUtils.move(File, WORKPATH, true);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-                } catch (Exception e)  {
-                    logger.logStackTrace("Exception thrown while moving override's content to the root directory!", e);
-                    logger.print("Failed to move override's content to the root directory! You will have to do that manually from the zip file or try again.",3);
+            if (Objects.nonNull(overridesExtraction)) {
+                if (!overridesExtraction.isDone()) logger.print("Waiting for the extraction of the overrides to finish...");
+                try {
+                    ZipExtractor.Result result = overridesExtraction.get(1, TimeUnit.DAYS);
+                    logger.print("> Overrides: " +
+                        RandomUtils.intGrammar(result.extracted(), " file", " files", true) + " extracted, " +
+                        result.unchanged() + " unchanged" +
+                        ((result.kept() > 0)? ", " + result.kept() + " modified kept": "") +
+                        ((result.backedUp() > 0)? ", " + result.backedUp() + " modified backed up": "") + "."
+                    );
+                } catch (ExecutionException e) {
+                    logger.logStackTrace("Exception thrown while extracting the overrides!", e.getCause());
+                    logger.print("Failed to extract the overrides! You will have to copy them manually from the zip file or try again.", 3);
                     System.out.println("---------------------------------------------------------------------");
                 }
+            }
 
-                logger.log("Deleting CDLTemp folder...");
-
+            if (Files.exists(CDLTemp)) {
+                logger.log("Found CDLTemp folder in the working directory! Deleting...");
                 FileUtils.delete(CDLTemp);
-                logger.log("Cleanup completed.");
             }
+            logger.log("Cleanup completed.");
         } catch (Exception e) {
             logger.logStackTrace("Exception thrown while cleaning up working space!", e);
             logger.print("Failed to properly cleanup working directory! CDLTemp was most likely not deleted. Please verify all config files from the overrides are intact, and delete CDLTemp manually.", 3);
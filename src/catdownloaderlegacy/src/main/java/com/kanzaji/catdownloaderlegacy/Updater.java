@@ -198,6 +198,8 @@ public class Updater {
                 JAVAPATH.toAbsolutePath() +
                 "\""
             );
+            // Updater reads the log file, so all messages have to be written before the app exits.
+            logger.flush();
             System.exit(10);
         } catch (Exception e) {
             logger.logStackTrace("Exception thrown while updating the app!", e);
@@ -0,0 +1,316 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy;
+
+import com.kanzaji.catdownloaderlegacy.exceptions.DirectIOException;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
+import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VerificationPipeline is a class used to calculate hashes of the files with separated I/O and CPU stages.
+ * Reader threads only read the files into pooled buffers, and Digest threads calculate the hashes of the read chunks.
+ * Amount of buffers is limited, so readers wait for the digests when hashing can't keep up with the disk.
+ */
+public class VerificationPipeline implements AutoCloseable {
+    private static final LoggerCustom logger = new LoggerCustom("Verification Pipeline");
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private final ExecutorService readExecutor;
+    private final ExecutorService digestExecutor;
+    private final ArrayBlockingQueue<ByteBuffer> bufferPool;
+    private final int bufferCount;
+    private final int readerThreads;
+    private final int digestThreads;
+    private final long startTime = System.nanoTime();
+    private final LongAdder readTime = new LongAdder();
+    private final LongAdder digestTime = new LongAdder();
+    private final LongAdder backPressureTime = new LongAdder();
+    private final AtomicInteger buffersInFlight = new AtomicInteger();
+    private final AtomicInteger maxBuffersInFlight = new AtomicInteger();
+
+    /**
+     * Constructor of VerificationPipeline Object.
+     * @param ReaderThreads Amount of threads reading the files.
+     * @param DigestThreads Amount of threads calculating the hashes.
+     * @throws IllegalArgumentException when any of the thread counts is below 1.
+     */
+    public VerificationPipeline(int ReaderThreads, int DigestThreads) throws IllegalArgumentException {
+        if (ReaderThreads < 1 || DigestThreads < 1) throw new IllegalArgumentException("Thread count of the Verification Pipeline can't be below 1!");
+        this.readerThreads = ReaderThreads;
+        this.digestThreads = DigestThreads;
+        this.readExecutor = Executors.newFixedThreadPool(ReaderThreads);
+        this.digestExecutor = Executors.newFixedThreadPool(DigestThreads);
+
+        // Each reader should have a few buffers in flight to stay ahead of the digests, without holding the entire instance in memory.
+        this.bufferCount = Math.min(Math.max(ReaderThreads * 4, 8), 128);
+        this.bufferPool = new ArrayBlockingQueue<>(this.bufferCount);
+        for (int i = 0; i < this.bufferCount; i++) {
+            this.bufferPool.add(FileVerUtils.allocateReadBuffer(BUFFER_SIZE));
+        }
+        logger.log("Verification Pipeline created with " + RandomUtils.intGrammar(ReaderThreads, " reader thread", " reader threads", true) + ", " + RandomUtils.intGrammar(DigestThreads, " digest thread", " digest threads", true) + " and " + this.bufferCount + " buffers of " + BUFFER_SIZE / 1024 + " KiB.");
+    }
+
+    /**
+     * Used to calculate hashes of the file with all specified algorithms, reading the file only once.
+     * @param FilePath {@link Path} to a file to calculate hashes from.
+     * @param Algorithms {@link Collection} with names of the algorithms to use for calculations.
+     * @return {@link CompletableFuture} completed with a {@link Map} of Algorithm -> Hash, or exceptionally when reading of the file fails.
+     */
+    public @NotNull CompletableFuture<Map<String, String>> digest(@NotNull Path FilePath, @NotNull Collection<String> Algorithms) {
+        Objects.requireNonNull(FilePath);
+        Objects.requireNonNull(Algorithms);
+        CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+
+        DigestJob job;
+        try {
+            job = new DigestJob(Algorithms, result);
+        } catch (NoSuchAlgorithmException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        try {
+            readExecutor.execute(() -> {
+                long StartTime = System.nanoTime();
+                PooledBufferSource source = new PooledBufferSource();
+                try {
+                    read(FilePath, job, source);
+                } finally {
+                    // Time spent waiting for free buffers is reported separately as back-pressure.
+                    backPressureTime.add(source.waitedTime);
+                    readTime.add(Math.max(System.nanoTime() - StartTime - source.waitedTime, 0));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Used to read the file into the specified job, and finish it.
+     * When Direct I/O fails in the middle of the file, the partial digest is discarded and the file is read again into a new job, with normal reads.
+     * @param FilePath {@link Path} to a file to read.
+     * @param Job {@link DigestJob} receiving the chunks of the file.
+     * @param Source {@link PooledBufferSource} providing the read buffers.
+     */
+    private void read(@NotNull Path FilePath, @NotNull DigestJob Job, @NotNull PooledBufferSource Source) {
+        DigestJob current = Job;
+        try {
+            try {
+                FileVerUtils.readFile(FilePath, Source, current::submit);
+            } catch (DirectIOException e) {
+                // Chunks already submitted are still drained by the abandoned job, so their buffers return to the pool.
+                current = Job.restart();
+                FileVerUtils.readFile(FilePath, Source, current::submit);
+            }
+            current.finish(null);
+        } catch (Throwable e) {
+            current.finish(e);
+        }
+    }
+
+    /**
+     * Used to shut down the pipeline and log its statistics. Waits for all already requested files.
+     */
+    @Override
+    public void close() {
+        readExecutor.shutdown();
+        digestExecutor.shutdown();
+        try {
+            if (!readExecutor.awaitTermination(1, TimeUnit.DAYS) || !digestExecutor.awaitTermination(1, TimeUnit.DAYS)) {
+                logger.critical("Verification Pipeline didn't finish in a day!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.logStackTrace("Interrupted while waiting for the Verification Pipeline to finish!", e);
+        } finally {
+            readExecutor.shutdownNow();
+            digestExecutor.shutdownNow();
+        }
+        logStatistics();
+    }
+
+    /**
+     * Used to log statistics of the pipeline.
+     */
+    private void logStatistics() {
+        long wallTime = System.nanoTime() - startTime;
+        logger.log("Verification Pipeline statistics:");
+        logger.summary("> Reader threads utilization: " + formatUtilization(readTime.sum(), wallTime, readerThreads));
+        logger.summary("> Digest threads utilization: " + formatUtilization(digestTime.sum(), wallTime, digestThreads));
+        logger.summary("> Time readers waited for free buffers (back-pressure): " + String.format(Locale.ROOT, "%.3fs", (double) backPressureTime.sum() / TimeUnit.SECONDS.toNanos(1)));
+        logger.summary("> Maximal amount of read buffers waiting for digests: " + maxBuffersInFlight.get() + " of " + bufferCount);
+    }
+
+    private static @NotNull String formatUtilization(long busyTime, long wallTime, int threads) {
+        if (wallTime <= 0) return "0.00%";
+        return String.format(Locale.ROOT, "%.2f%%", 100D * busyTime / ((double) wallTime * threads));
+    }
+
+    /**
+     * Source of the read buffers from the shared pool, used by a single reader task.
+     * Keeps track of the time this task waited for free buffers.
+     */
+    private final class PooledBufferSource implements FileVerUtils.BufferSource {
+        private long waitedTime = 0;
+
+        @Override
+        public ByteBuffer acquire() throws IOException {
+            ByteBuffer buffer = bufferPool.poll();
+            if (Objects.nonNull(buffer)) return buffer;
+
+            long StartTime = System.nanoTime();
+            try {
+                return bufferPool.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free read buffer!");
+            } finally {
+                waitedTime += System.nanoTime() - StartTime;
+            }
+        }
+
+        @Override
+        public void release(ByteBuffer buffer) {
+            bufferPool.add(buffer);
+        }
+    }
+
+    /**
+     * This class is used to calculate hashes of a single file. Chunks are digested in order by one Digest thread at a time.
+     */
+    private final class DigestJob {
+        private final String[] algorithms;
+        private final MessageDigest[] digests;
+        private final CompletableFuture<Map<String, String>> result;
+        private final ConcurrentLinkedQueue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean finished = false;
+        private volatile Throwable failure;
+        // Accessed only by the thread holding the draining flag.
+        private boolean completed = false;
+
+        private DigestJob(@NotNull Collection<String> Algorithms, CompletableFuture<Map<String, String>> Result) throws NoSuchAlgorithmException {
+            this.algorithms = Algorithms.toArray(new String[0]);
+            this.digests = new MessageDigest[this.algorithms.length];
+            for (int i = 0; i < this.algorithms.length; i++) {
+                this.digests[i] = MessageDigest.getInstance(this.algorithms[i]);
+            }
+            this.result = Result;
+        }
+
+        /**
+         * Used to create a new job with the same algorithms, completing the same result.
+         * This job is abandoned, but chunks already submitted to it are still drained.
+         * @return New {@link DigestJob} for the same file.
+         * @throws NoSuchAlgorithmException never, as the algorithms were already resolved by this job.
+         */
+        private DigestJob restart() throws NoSuchAlgorithmException {
+            return new DigestJob(Arrays.asList(this.algorithms), this.result);
+        }
+
+        private void submit(ByteBuffer chunk) {
+            int inFlight = buffersInFlight.incrementAndGet();
+            maxBuffersInFlight.accumulateAndGet(inFlight, Math::max);
+            chunks.add(chunk);
+            schedule();
+        }
+
+        private void finish(Throwable Failure) {
+            this.failure = Failure;
+            this.finished = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                digestExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void drain() {
+            long StartTime = System.nanoTime();
+            try {
+                do {
+                    ByteBuffer chunk;
+                    while (Objects.nonNull(chunk = chunks.poll())) {
+                        try {
+                            if (!completed) {
+                                for (MessageDigest Digest : digests) {
+                                    chunk.rewind();
+                                    Digest.update(chunk);
+                                }
+                            }
+                        } finally {
+                            buffersInFlight.decrementAndGet();
+                            bufferPool.add(chunk);
+                        }
+                    }
+                    // All chunks are queued before the reader marks the job as finished.
+                    if (finished && !completed) complete();
+                    draining.set(false);
+                } while ((!chunks.isEmpty() || (finished && !completed)) && draining.compareAndSet(false, true));
+            } catch (Throwable e) {
+                completed = true;
+                draining.set(false);
+                result.completeExceptionally(e);
+            } finally {
+                digestTime.add(System.nanoTime() - StartTime);
+            }
+        }
+
+        private void complete() {
+            completed = true;
+            if (Objects.nonNull(failure)) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            Map<String, String> hashes = new HashMap<>();
+            for (int i = 0; i < algorithms.length; i++) {
+                hashes.put(algorithms[i], FileVerUtils.toHexString(digests[i].digest()));
+            }
+            result.complete(hashes);
+        }
+    }
+}
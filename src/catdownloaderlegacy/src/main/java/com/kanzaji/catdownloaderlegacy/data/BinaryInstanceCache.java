@@ -0,0 +1,414 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.exceptions.FormatVersionMismatchException;
+import com.kanzaji.catdownloaderlegacy.exceptions.UnknownFormatException;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.RandomUtils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class is used to write and read the cache of the {@link CDLInstance} in a compact binary format.
+ * The file is read into memory in one go, and files are decoded only when they are looked up.
+ * No mapping or handle of the file is kept open, so it can be replaced or deleted while the cache is in use.
+ * <h3>Layout (Big Endian):</h3>
+ * <ul>
+ * <li><b>Header</b> - Magic "CDLB", format version, counts and offsets of the sections, and string ids of the instance metadata.</li>
+ * <li><b>String table</b> - Offset and length of every distinct string. Paths are split into a directory and a name, so both are shared.</li>
+ * <li><b>String data</b> - UTF-8 bytes of all strings.</li>
+ * <li><b>Records</b> - One fixed-width record per file with string ids, size and raw digest bytes, sorted by the hash of {@link CDLInstance.FileKey}.</li>
+ * </ul>
+ * @see BinaryInstanceCache#write(CDLInstance, Path)
+ * @see BinaryInstanceCache#open(Path)
+ */
+public class BinaryInstanceCache {
+    private static final LoggerCustom logger = new LoggerCustom("Binary Instance Cache");
+    public static final String FILE_NAME = "CDL-Instance-cache.bin";
+    public static final int latestFormatVersion = 1;
+    private static final int MAGIC = 0x43444C42; // "CDLB"
+    private static final int METADATA_STRINGS = 10;
+    private static final int HEADER_SIZE = 32 + METADATA_STRINGS * 4;
+    private static final int RECORD_SIZE = 8 + 5 * 4 + 4 + 20 + 32 + 64;
+    private static final int NONE = -1;
+
+    private static final int FLAG_PATH = 1;
+    private static final int FLAG_SHA1 = 1 << 1;
+    private static final int FLAG_SHA256 = 1 << 2;
+    private static final int FLAG_SHA512 = 1 << 3;
+    // Hashes that are not lowercase hex of the expected length are stored as strings, with the id in the digest slot.
+    private static final int FLAG_SHA1_STRING = 1 << 4;
+    private static final int FLAG_SHA256_STRING = 1 << 5;
+    private static final int FLAG_SHA512_STRING = 1 << 6;
+
+    private static final int OBJECT_MODPACK = 1;
+    private static final int OBJECT_MINECRAFT = 1 << 1;
+    private static final int OBJECT_MODLOADER = 1 << 2;
+
+    private final ByteBuffer data;
+    private final int stringCount;
+    private final int fileCount;
+    private final int stringTableOffset;
+    private final int stringDataOffset;
+    private final int recordsOffset;
+    private final String[] strings;
+
+    private BinaryInstanceCache(ByteBuffer data) {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) throw new UnknownFormatException("File is not a binary CDLInstance cache!");
+        if (Short.toUnsignedInt(data.getShort(4)) != latestFormatVersion) throw new FormatVersionMismatchException("Binary CDLInstance cache is in version " + Short.toUnsignedInt(data.getShort(4)) + ", while " + latestFormatVersion + " is supported!");
+
+        this.stringCount = data.getInt(8);
+        this.fileCount = data.getInt(12);
+        this.stringTableOffset = data.getInt(16);
+        this.stringDataOffset = data.getInt(20);
+        this.recordsOffset = data.getInt(24);
+        if (
+            this.stringCount < 0 || this.fileCount < 0 ||
+            this.stringTableOffset != HEADER_SIZE ||
+            this.stringDataOffset != this.stringTableOffset + this.stringCount * 8L ||
+            this.recordsOffset < this.stringDataOffset ||
+            this.recordsOffset + (long) this.fileCount * RECORD_SIZE != data.capacity()
+        ) {
+            throw new UnknownFormatException("Binary CDLInstance cache is corrupted! Sections don't match the size of the file.");
+        }
+        this.strings = new String[this.stringCount];
+    }
+
+    /**
+     * Used to open the binary cache. The file is read into a heap buffer, only the header is validated at this point.
+     * @param CacheFile {@link Path} to the binary cache file.
+     * @return {@link BinaryInstanceCache} for the file.
+     * @throws IOException when IO Exception occurs.
+     * @throws UnknownFormatException when the file isn't a binary cache, or is corrupted.
+     * @throws FormatVersionMismatchException when the file is in a different format version.
+     */
+    public static @NotNull BinaryInstanceCache open(@NotNull Path CacheFile) throws IOException, UnknownFormatException, FormatVersionMismatchException {
+        Objects.requireNonNull(CacheFile);
+        try (FileChannel channel = FileChannel.open(CacheFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new UnknownFormatException("Binary CDLInstance cache is too big!");
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) throw new UnknownFormatException("Binary CDLInstance cache has been truncated while reading!");
+            }
+            return new BinaryInstanceCache(data.clear());
+        }
+    }
+
+    /**
+     * Used to write specified {@link CDLInstance} to the binary cache. The file is replaced atomically, when supported by the file system.
+     * @param Instance {@link CDLInstance} to write.
+     * @param CacheFile {@link Path} to the binary cache file.
+     * @throws IOException when IO Exception occurs.
+     */
+    public static void write(@NotNull CDLInstance Instance, @NotNull Path CacheFile) throws IOException {
+        Objects.requireNonNull(Instance);
+        Objects.requireNonNull(CacheFile);
+        CDLInstance.ModFile[] files = Arrays.stream(Objects.requireNonNullElse(Instance.files, new CDLInstance.ModFile[0])).filter(Objects::nonNull).toArray(CDLInstance.ModFile[]::new);
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+
+        int objects = 0;
+        CDLInstance.ModpackData modpack = Instance.modpackData;
+        CDLInstance.MinecraftData minecraft = Instance.minecraftData;
+        CDLInstance.ModLoader modLoader = Instance.modLoaderData;
+        if (Objects.nonNull(modpack)) objects |= OBJECT_MODPACK;
+        if (Objects.nonNull(minecraft)) objects |= OBJECT_MINECRAFT;
+        if (Objects.nonNull(modLoader)) objects |= OBJECT_MODLOADER;
+        int[] metadata = {
+            intern(stringIds, Instance.cdlFormatVersion),
+            intern(stringIds, Instance.instanceName),
+            intern(stringIds, (Objects.isNull(modpack))? null: modpack.version),
+            intern(stringIds, (Objects.isNull(modpack))? null: modpack.author),
+            intern(stringIds, (Objects.isNull(modpack))? null: modpack.overrides),
+            intern(stringIds, (Objects.isNull(modpack))? null: modpack.name),
+            intern(stringIds, (Objects.isNull(modpack))? null: modpack.summary),
+            intern(stringIds, (Objects.isNull(minecraft))? null: minecraft.version),
+            intern(stringIds, (Objects.isNull(modLoader))? null: modLoader.modLoader),
+            intern(stringIds, (Objects.isNull(modLoader))? null: modLoader.version)
+        };
+
+        ByteBuffer records = ByteBuffer.allocate(files.length * RECORD_SIZE);
+        Integer[] order = new Integer[files.length];
+        long[] keyHashes = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            order[i] = i;
+            keyHashes[i] = hashKey(files[i].getFileKey());
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> keyHashes[i]));
+
+        for (Integer i : order) {
+            CDLInstance.ModFile file = files[i];
+            int flags = 0;
+            int pathDirectory = NONE;
+            int pathName = NONE;
+            if (Objects.nonNull(file.path)) {
+                flags |= FLAG_PATH;
+                int separator = file.path.lastIndexOf('/') + 1;
+                pathDirectory = intern(stringIds, file.path.substring(0, separator));
+                pathName = intern(stringIds, file.path.substring(separator));
+            }
+
+            CDLInstance.Hashes hashes = file.hashes;
+            byte[] sha1 = new byte[20];
+            byte[] sha256 = new byte[32];
+            byte[] sha512 = new byte[64];
+            if (Objects.nonNull(hashes)) {
+                flags |= encodeHash(stringIds, hashes.sha1, sha1, FLAG_SHA1, FLAG_SHA1_STRING);
+                flags |= encodeHash(stringIds, hashes.sha256, sha256, FLAG_SHA256, FLAG_SHA256_STRING);
+                flags |= encodeHash(stringIds, hashes.sha512, sha512, FLAG_SHA512, FLAG_SHA512_STRING);
+            }
+
+            records.putLong(keyHashes[i]);
+            records.putInt(intern(stringIds, file.fileName));
+            records.putInt(intern(stringIds, file.downloadURL));
+            records.putInt(pathDirectory);
+            records.putInt(pathName);
+            records.putInt(file.fileLength);
+            records.putInt(flags);
+            records.put(sha1).put(sha256).put(sha512);
+        }
+
+        List<byte[]> encodedStrings = new ArrayList<>(stringIds.size());
+        int stringDataSize = 0;
+        for (String string : stringIds.keySet()) {
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(encoded);
+            stringDataSize += encoded.length;
+        }
+
+        int stringTableOffset = HEADER_SIZE;
+        int stringDataOffset = stringTableOffset + encodedStrings.size() * 8;
+        int recordsOffset = stringDataOffset + stringDataSize;
+        ByteBuffer output = ByteBuffer.allocate(recordsOffset + records.capacity());
+        output.putInt(MAGIC);
+        output.putShort((short) latestFormatVersion);
+        output.putShort((short) 0);
+        output.putInt(encodedStrings.size());
+        output.putInt(files.length);
+        output.putInt(stringTableOffset);
+        output.putInt(stringDataOffset);
+        output.putInt(recordsOffset);
+        output.putInt(objects);
+        for (int id : metadata) output.putInt(id);
+
+        int offset = 0;
+        for (byte[] encoded : encodedStrings) {
+            output.putInt(offset);
+            output.putInt(encoded.length);
+            offset += encoded.length;
+        }
+        for (byte[] encoded : encodedStrings) output.put(encoded);
+        output.put(records.flip());
+
+        FileUtils.writeAtomically(CacheFile, (out) -> out.write(output.array()));
+        logger.log("Binary cache with " + RandomUtils.intGrammar(files.length, " file", " files", true) + " and " + encodedStrings.size() + " distinct strings saved (" + output.capacity() + " bytes).");
+    }
+
+    /**
+     * Used to get the instance metadata stored in the cache. Files are not decoded, {@link CDLInstance#files} is empty.
+     * @return {@link CDLInstance} with the metadata from the cache.
+     */
+    public @NotNull CDLInstance getInstanceData() {
+        CDLInstance instance = CDLInstance.create();
+        int objects = this.data.getInt(28);
+        int base = 32;
+        instance.cdlFormatVersion = string(this.data.getInt(base));
+        instance.instanceName = string(this.data.getInt(base + 4));
+        if ((objects & OBJECT_MODPACK) != 0) {
+            instance.modpackData = new CDLInstance.ModpackData();
+            instance.modpackData.version = string(this.data.getInt(base + 8));
+            instance.modpackData.author = string(this.data.getInt(base + 12));
+            instance.modpackData.overrides = string(this.data.getInt(base + 16));
+            instance.modpackData.name = string(this.data.getInt(base + 20));
+            instance.modpackData.summary = string(this.data.getInt(base + 24));
+        }
+        if ((objects & OBJECT_MINECRAFT) != 0) {
+            instance.minecraftData = new CDLInstance.MinecraftData();
+            instance.minecraftData.version = string(this.data.getInt(base + 28));
+        }
+        if ((objects & OBJECT_MODLOADER) != 0) {
+            instance.modLoaderData = new CDLInstance.ModLoader();
+            instance.modLoaderData.modLoader = string(this.data.getInt(base + 32));
+            instance.modLoaderData.version = string(this.data.getInt(base + 36));
+        }
+        instance.files = new CDLInstance.ModFile[0];
+        return instance;
+    }
+
+    /**
+     * Used to get the amount of files in the cache.
+     * @return {@link Integer} with the amount of files.
+     */
+    public int getFileCount() {
+        return this.fileCount;
+    }
+
+    /**
+     * Used to look up a file in the cache. Only records with the same key hash are decoded.
+     * @param Key {@link CDLInstance.FileKey} of the file.
+     * @return {@link CDLInstance.ModFile} from the cache, or null if the cache doesn't contain the file.
+     */
+    public @Nullable CDLInstance.ModFile find(@NotNull CDLInstance.FileKey Key) {
+        Objects.requireNonNull(Key);
+        long hash = hashKey(Key);
+
+        int low = 0;
+        int high = this.fileCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyHashAt(middle) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        for (int i = low; i < this.fileCount && keyHashAt(i) == hash; i++) {
+            if (matches(i, Key)) return getFile(i);
+        }
+        return null;
+    }
+
+    /**
+     * Used to check if the record matches the key, comparing the stored fields without decoding the entire file.
+     * @param Index {@link Integer} with the index of the record.
+     * @param Key {@link CDLInstance.FileKey} to compare with.
+     * @return {@code true} if the record is for the file with specified key, otherwise {@code false}.
+     */
+    private boolean matches(int Index, CDLInstance.@NotNull FileKey Key) {
+        int record = this.recordsOffset + Index * RECORD_SIZE;
+        if (this.data.getInt(record + 24) != Key.fileLength()) return false;
+        String fileName = string(this.data.getInt(record + 8));
+        if (!Objects.equals(fileName, Key.fileName()) || !Objects.equals(string(this.data.getInt(record + 12)), Key.downloadURL())) return false;
+
+        String path = ((this.data.getInt(record + 28) & FLAG_PATH) != 0)? string(this.data.getInt(record + 16)) + string(this.data.getInt(record + 20)): "mods/" + fileName;
+        // Stored paths are almost always normalized already, so normalizing is done only when they differ.
+        return Objects.equals(path, Key.path()) || Objects.equals(getFile(Index).getFileKey(), Key);
+    }
+
+    /**
+     * Used to decode a file from the cache.
+     * @param Index {@link Integer} with the index of the record.
+     * @return {@link CDLInstance.ModFile} decoded from the record.
+     * @throws IndexOutOfBoundsException when Index is outside of the records.
+     */
+    public @NotNull CDLInstance.ModFile getFile(int Index) throws IndexOutOfBoundsException {
+        Objects.checkIndex(Index, this.fileCount);
+        int record = this.recordsOffset + Index * RECORD_SIZE;
+        int flags = this.data.getInt(record + 28);
+
+        CDLInstance.ModFile file = new CDLInstance.ModFile();
+        file.fileName = string(this.data.getInt(record + 8));
+        file.downloadURL = string(this.data.getInt(record + 12));
+        if ((flags & FLAG_PATH) != 0) {
+            file.path = string(this.data.getInt(record + 16)) + string(this.data.getInt(record + 20));
+        }
+        file.fileLength = this.data.getInt(record + 24);
+
+        if ((flags & (FLAG_SHA1 | FLAG_SHA256 | FLAG_SHA512)) != 0) {
+            file.hashes = new CDLInstance.Hashes();
+            file.hashes.sha1 = decodeHash(flags, FLAG_SHA1, FLAG_SHA1_STRING, record + 32, 20);
+            file.hashes.sha256 = decodeHash(flags, FLAG_SHA256, FLAG_SHA256_STRING, record + 52, 32);
+            file.hashes.sha512 = decodeHash(flags, FLAG_SHA512, FLAG_SHA512_STRING, record + 84, 64);
+        }
+        return file;
+    }
+
+    private long keyHashAt(int Index) {
+        return this.data.getLong(this.recordsOffset + Index * RECORD_SIZE);
+    }
+
+    private @Nullable String string(int Id) {
+        if (Id == NONE) return null;
+        Objects.checkIndex(Id, this.stringCount);
+        String string = this.strings[Id];
+        if (Objects.isNull(string)) {
+            int offset = this.data.getInt(this.stringTableOffset + Id * 8);
+            int length = this.data.getInt(this.stringTableOffset + Id * 8 + 4);
+            if (offset < 0 || length < 0 || (long) this.stringDataOffset + offset + length > this.recordsOffset) {
+                throw new UnknownFormatException("Binary CDLInstance cache is corrupted! String " + Id + " is outside of the string data.");
+            }
+            byte[] encoded = new byte[length];
+            this.data.get(this.stringDataOffset + offset, encoded);
+            string = new String(encoded, StandardCharsets.UTF_8);
+            this.strings[Id] = string;
+        }
+        return string;
+    }
+
+    private @Nullable String decodeHash(int Flags, int Flag, int StringFlag, int Offset, int Length) {
+        if ((Flags & Flag) == 0) return null;
+        if ((Flags & StringFlag) != 0) return string(this.data.getInt(Offset));
+        byte[] digest = new byte[Length];
+        this.data.get(Offset, digest);
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static int encodeHash(Map<String, Integer> StringIds, @Nullable String Hash, byte @NotNull [] Slot, int Flag, int StringFlag) {
+        if (Objects.isNull(Hash)) return 0;
+        if (Hash.length() == Slot.length * 2 && Hash.chars().allMatch((c) -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            System.arraycopy(HexFormat.of().parseHex(Hash), 0, Slot, 0, Slot.length);
+            return Flag;
+        }
+        ByteBuffer.wrap(Slot).putInt(intern(StringIds, Hash));
+        return Flag | StringFlag;
+    }
+
+    private static int intern(Map<String, Integer> StringIds, @Nullable String Value) {
+        if (Objects.isNull(Value)) return NONE;
+        return StringIds.computeIfAbsent(Value, (value) -> StringIds.size());
+    }
+
+    /**
+     * Used to calculate a stable 64-bit hash (FNV-1a) of the {@link CDLInstance.FileKey}, used to sort and look up the records.
+     * @param Key {@link CDLInstance.FileKey} to hash.
+     * @return {@link Long} with the hash of the key.
+     */
+    private static long hashKey(CDLInstance.@NotNull FileKey Key) {
+        long hash = 0xcbf29ce484222325L;
+        for (String part : new String[]{Key.path(), Key.fileName(), String.valueOf(Key.fileLength()), Key.downloadURL()}) {
+            if (Objects.isNull(part)) {
+                hash = (hash ^ 0xFFFE) * 0x100000001b3L;
+                continue;
+            }
+            for (int i = 0; i < part.length(); i++) {
+                hash = (hash ^ part.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -25,8 +25,11 @@
 package com.kanzaji.catdownloaderlegacy.data;
 
 import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.VerificationPipeline;
 import com.kanzaji.catdownloaderlegacy.exceptions.UnknownFormatException;
+import com.kanzaji.catdownloaderlegacy.loggers.EventLog;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.DirectorySnapshot;
 import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
 import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
 import com.kanzaji.catdownloaderlegacy.utils.NetworkingUtils;
@@ -40,14 +43,20 @@ import com.google.gson.GsonBuilder;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.rmi.UnexpectedException;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * This class holds data for CDLPack format, and additional methods for transforming other formats (CurseForge Instance / Pack, Modrinth mrpack) to this format.
@@ -97,8 +106,8 @@ public class CDLInstance {
 
         boolean filesEqual = true;
         if (!excludeFiles) {
-            List<ModFile> modFiles = Arrays.asList(cdlInstance.files);
-            filesEqual = Arrays.stream(this.files).allMatch(modFiles::contains);
+            Set<ModFile> modFiles = new HashSet<>(Arrays.asList(cdlInstance.files));
+            filesEqual = modFiles.containsAll(Arrays.asList(this.files));
         }
 
         return  Objects.equals(this.cdlFormatVersion, cdlInstance.cdlFormatVersion) &&
@@ -109,6 +118,47 @@ public class CDLInstance {
                 filesEqual;
     }
 
+    /**
+     * Used to get an index of the files in this instance, keyed by {@link ModFile#getFileKey()}.
+     * When multiple files have the same key, the first one is indexed.
+     * @return {@link Map} with {@link FileKey} -> {@link ModFile} entries.
+     */
+    public @NotNull Map<FileKey, ModFile> getFileIndex() {
+        Map<FileKey, ModFile> index = new HashMap<>(this.files.length * 2);
+        for (ModFile file : this.files) {
+            if (Objects.isNull(file)) continue;
+            index.putIfAbsent(file.getFileKey(), file);
+        }
+        return index;
+    }
+
+    /**
+     * Used to reconcile hashes of this instance with cached data, entry by entry.
+     * Cached hashes are kept for every file, which path, size and URL still match an entry in the cache,
+     * and which hashes don't contradict the hashes from the manifest. All other cached entries are dropped.
+     * @param CachedFiles Function returning cached {@link ModFile} for specified {@link FileKey}, or null if the cache doesn't have it.
+     * @return Number of files, which hashes were taken from the cache.
+     */
+    public int reconcileHashes(@NotNull Function<FileKey, ModFile> CachedFiles) {
+        Objects.requireNonNull(CachedFiles);
+        int reconciled = 0;
+        for (ModFile file : this.files) {
+            if (Objects.isNull(file)) continue;
+            ModFile cachedFile = CachedFiles.apply(file.getFileKey());
+            if (Objects.isNull(cachedFile) || Objects.isNull(cachedFile.hashes) || !cachedFile.hashes.isPopulated()) continue;
+            if (Objects.isNull(file.hashes)) {
+                file.hashes = cachedFile.hashes;
+            } else if (file.hashes.isCompatible(cachedFile.hashes)) {
+                file.hashes.merge(cachedFile.hashes);
+            } else {
+                logger.warn("Cached hashes for \"" + file.getPath() + "\" don't match hashes from the manifest! Entry has been dropped from the cache.");
+                continue;
+            }
+            reconciled++;
+        }
+        return reconciled;
+    }
+
     /**
      * Used to get new instance of CDLInstance object.
      * @return new CDLInstance object with formatVersion specified to the latest format version supported.
@@ -145,8 +195,14 @@ public class CDLInstance {
 
     /**
      * This method is used to get a Verification task for the file under specified index.
+     * Existence and size of the file are checked in the {@link DirectorySnapshot} on the calling thread, hashes are calculated in the {@link VerificationPipeline}.
+     * Missing hashes of the file are calculated in the same pass as the verified one.
      * @param modFile Index to the modFile in the Files Array.
-     * @return Callable to execute with verification routine for specified file.
+     * @param Snapshot {@link DirectorySnapshot} with the content of the instance directories.
+     * @param Ledger {@link InstalledFilesLedger} with files installed by previous syncs, or null. Files unchanged since they were installed with matching hashes are not read.
+     * @param Pipeline {@link VerificationPipeline} used to calculate hashes of the file.
+     * @param Executor {@link Executor} used for verification against the resource from the network, when the file has no hashes.
+     * @return CompletableFuture completed with the results of the verification for specified file.
      * <h3>Returns:</h3>
      * <ul>
      * <li><b>1</b> if file not found.</li>
@@ -154,52 +210,126 @@ public class CDLInstance {
      * <li><b>0</b> if file was verified successfully.</li>
      * </ul>
      */
-    public Callable<Integer[]> getVerificationTask(int modFile) {
+    public CompletableFuture<Integer[]> getVerificationTask(int modFile, @NotNull DirectorySnapshot Snapshot, @Nullable InstalledFilesLedger Ledger, @NotNull VerificationPipeline Pipeline, @NotNull Executor Executor) {
         ModFile mod = this.files[modFile];
         if (Objects.isNull(mod.path)) {
             mod.path = "mods/" + mod.fileName;
         }
-        return new Callable<>() {
+        Path modPath = Path.of(WORKPATH.toString(), mod.path);
+        final long StartingTime = System.nanoTime();
 
-            /**
-             * Computes a result, or throws an exception if unable to do so.
-             *
-             * @return computed result
-             * @throws Exception if unable to compute a result
-             */
-            @Override
-            public Integer[] call() throws Exception {
-                try {
-                    Path modPath = Path.of(WORKPATH.toString(), mod.path);
-                    if (Files.notExists(modPath)) {
-                        return new Integer[]{modFile, 1};
-                    }
+        BasicFileAttributes attributes = Snapshot.getAttributes(modPath);
+        if (Objects.isNull(attributes)) {
+            emitEvent("verify", modFile, mod, null, StartingTime, null, "missing");
+            return CompletableFuture.completedFuture(new Integer[]{modFile, 1});
+        }
+        if (ArgumentDecoder.getInstance().isFileSizeVerActive() && attributes.size() != mod.fileLength) {
+            emitEvent("verify", modFile, mod, attributes.size(), StartingTime, null, "corrupted");
+            return CompletableFuture.completedFuture(new Integer[]{modFile, -1});
+        }
 
-                    boolean corrupted;
-                    if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.downloadURL);
-                    } else if (Objects.nonNull(mod.hashes.sha512)) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha512, "SHA-512");
-                    } else if (Objects.nonNull(mod.hashes.sha256)) {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha256, "SHA-256");
-                    } else {
-                        corrupted = !FileVerUtils.verifyFile(modPath, mod.fileLength, mod.hashes.sha1, "SHA-1");
-                    }
+        if (Objects.isNull(mod.hashes)) mod.hashes = new Hashes();
+        Hashes hashes = mod.hashes;
+
+        // Fast path for files that weren't modified since they were installed and verified by the previous sync.
+        InstalledFilesLedger.Entry entry = (Objects.isNull(Ledger))? null: Ledger.get(mod.getFileKey().path());
+        if (Objects.nonNull(entry) && entry.isUnchanged(attributes) && entry.matches(hashes)) {
+            if (Objects.isNull(hashes.sha512)) hashes.sha512 = entry.hashes.sha512;
+            if (Objects.isNull(hashes.sha256)) hashes.sha256 = entry.hashes.sha256;
+            if (Objects.isNull(hashes.sha1)) hashes.sha1 = entry.hashes.sha1;
+            emitEvent("verify", modFile, mod, attributes.size(), StartingTime, null, "unchanged");
+            return CompletableFuture.completedFuture(new Integer[]{modFile, 0});
+        }
+        boolean verifyWithURL = !hashes.isPopulated();
+        String Algorithm = null;
+        String Hash = null;
+        if (ArgumentDecoder.getInstance().isHashVerActive() && !verifyWithURL) {
+            if (Objects.nonNull(hashes.sha512)) {
+                Algorithm = "SHA-512";
+                Hash = hashes.sha512;
+            } else if (Objects.nonNull(hashes.sha256)) {
+                Algorithm = "SHA-256";
+                Hash = hashes.sha256;
+            } else {
+                Algorithm = "SHA-1";
+                Hash = hashes.sha1;
+            }
+        }
 
-                    if (corrupted) return new Integer[]{modFile, -1};
+        List<String> Algorithms = new ArrayList<>(3);
+        if (Objects.isNull(hashes.sha512)) Algorithms.add("SHA-512");
+        if (Objects.isNull(hashes.sha256)) Algorithms.add("SHA-256");
+        if (Objects.isNull(hashes.sha1)) Algorithms.add("SHA-1");
+        if (Objects.nonNull(Algorithm) && !Algorithms.contains(Algorithm)) Algorithms.add(Algorithm);
+        if (Algorithms.isEmpty()) {
+            emitEvent("verify", modFile, mod, attributes.size(), StartingTime, null, "verified");
+            return CompletableFuture.completedFuture(new Integer[]{modFile, 0});
+        }
 
-                    mod.fillHashes();
-                    return new Integer[]{modFile, 0};
+        CompletableFuture<Map<String, String>> digests = Pipeline.digest(modPath, Algorithms);
+        CompletableFuture<String> remoteHash;
+        if (verifyWithURL && ArgumentDecoder.getInstance().isHashVerActive()) {
+            remoteHash = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return FileVerUtils.getHash(mod.downloadURL);
                 } catch (Exception e) {
-                    throw new UnexpectedException(String.valueOf(modFile), new UnexpectedException("Exception was thrown while verifying a file \"" + mod.path + "\"!", e));
+                    throw new CompletionException(e);
                 }
+            }, Executor);
+        } else {
+            remoteHash = CompletableFuture.completedFuture(null);
+        }
+
+        final String ExpectedAlgorithm = (verifyWithURL)? "SHA-256": Algorithm;
+        final String ExpectedHash = Hash;
+        final long FileSize = attributes.size();
+        return digests.thenCombine(remoteHash, (Map<String, String> calculated, String remote) -> {
+            String expected = (verifyWithURL)? remote: ExpectedHash;
+            if (Objects.nonNull(expected) && !Objects.equals(calculated.get(ExpectedAlgorithm), expected)) {
+                emitEvent("verify", modFile, mod, FileSize, StartingTime, ExpectedAlgorithm, "corrupted");
+                return new Integer[]{modFile, -1};
             }
-        };
+            emitEvent("verify", modFile, mod, FileSize, StartingTime, (Objects.nonNull(expected))? ExpectedAlgorithm: null, "verified");
+            if (Objects.isNull(hashes.sha512)) hashes.sha512 = calculated.get("SHA-512");
+            if (Objects.isNull(hashes.sha256)) hashes.sha256 = calculated.get("SHA-256");
+            if (Objects.isNull(hashes.sha1)) hashes.sha1 = calculated.get("SHA-1");
+            return new Integer[]{modFile, 0};
+        }).handle((Integer[] result, Throwable e) -> {
+            if (Objects.isNull(e)) return result;
+            throw new CompletionException(getVerificationException(modFile, mod, (e instanceof CompletionException && Objects.nonNull(e.getCause()))? e.getCause(): e));
+        });
+    }
+
+    /**
+     * Used to write an event about a file to the {@link EventLog}.
+     * @param Phase {@link String} with the phase of the sync.
+     * @param modFile Index to the modFile in the Files Array.
+     * @param mod {@link ModFile} the event is about.
+     * @param Bytes Size of the file in bytes, or {@code null} if unknown.
+     * @param StartingTime Value of {@link System#nanoTime()} at the start of the operation.
+     * @param Algorithm {@link String} with the hash algorithm used, or {@code null} if the file wasn't verified with a hash.
+     * @param Outcome {@link String} with the outcome of the operation.
+     */
+    private static void emitEvent(@NotNull String Phase, int modFile, @NotNull ModFile mod, @Nullable Long Bytes, long StartingTime, @Nullable String Algorithm, @NotNull String Outcome) {
+        if (!EventLog.isEnabled()) return;
+        EventLog.emit(Phase, modFile, mod.path, Bytes, System.nanoTime() - StartingTime, Algorithm, Outcome);
+    }
+
+    /**
+     * Used to wrap exceptions thrown while verifying a file, in the format expected by {@link com.kanzaji.catdownloaderlegacy.SyncManager}.
+     * @param modFile Index to the modFile in the Files Array.
+     * @param mod {@link ModFile} that was verified.
+     * @param e {@link Throwable} thrown while verifying the file.
+     * @return {@link UnexpectedException} with the index of the file as the message.
+     */
+    private static @NotNull UnexpectedException getVerificationException(int modFile, @NotNull ModFile mod, Throwable e) {
+        return new UnexpectedException(String.valueOf(modFile), new UnexpectedException("Exception was thrown while verifying a file \"" + mod.path + "\"!", (e instanceof Exception ex)? ex: new Exception(e)));
     }
 
     /**
      * This method is used to get a Download task for the file under specified index.
      * @param modFile Index to the modFile in the Files Array.
+     * @param Snapshot {@link DirectorySnapshot} with the content of the instance directories. Updated after the download.
      * @return Callable to execute with download routine for specified file.
      * <h3>Returns:</h3>
      * <ul>
@@ -207,7 +337,7 @@ public class CDLInstance {
      * <li><b>0</b> if file was downloaded successfully. </li>
      * </ul>
      */
-    public Callable<Integer[]> getDownloadTask(int modFile) {
+    public Callable<Integer[]> getDownloadTask(int modFile, @NotNull DirectorySnapshot Snapshot) {
         ModFile mod = this.files[modFile];
         if (Objects.isNull(mod.path)) {
             mod.path = "mods/" + mod.fileName;
@@ -222,22 +352,29 @@ public class CDLInstance {
              */
             @Override
             public Integer[] call() throws Exception {
+                Path modPath = Path.of(WORKPATH.toString(), mod.path);
+                long StartingTime = System.nanoTime();
                 try {
-                    Path modPath = Path.of(WORKPATH.toString(), mod.path);
-                    if (Files.exists(modPath)) {
+                    if (Snapshot.exists(modPath)) {
                         FileUtils.delete(modPath);
+                        Snapshot.remove(modPath);
                     }
 
                     boolean successful;
+                    String Algorithm = null;
                     if (Objects.isNull(mod.hashes) || !mod.hashes.isPopulated()) {
                         successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName);
                     } else if (Objects.nonNull(mod.hashes.sha512)) {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha512, "SHA-512");
+                        Algorithm = "SHA-512";
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha512, Algorithm);
                     } else if (Objects.nonNull(mod.hashes.sha256)) {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha256, "SHA-256");
+                        Algorithm = "SHA-256";
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha256, Algorithm);
                     } else {
-                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha1, "SHA-1");
+                        Algorithm = "SHA-1";
+                        successful = NetworkingUtils.downloadAndVerify(modPath, mod.downloadURL, mod.fileLength, mod.fileName, mod.hashes.sha1, Algorithm);
                     }
+                    emitEvent("download", modFile, mod, (long) mod.fileLength, StartingTime, Algorithm, (successful)? "downloaded": "failed");
 
                     if (successful) {
                         mod.fillHashes();
@@ -247,6 +384,8 @@ public class CDLInstance {
                     return new Integer[]{modFile, -1};
                 } catch (Exception e) {
                     throw new UnexpectedException(String.valueOf(modFile), new UnexpectedException("Exception was thrown while downloading a file \"" + mod.path + "\"!", e));
+                } finally {
+                    Snapshot.update(modPath);
                 }
             }
         };
@@ -306,7 +445,7 @@ public class CDLInstance {
                 //TODO: Create proper "Server / client" separation in the launcher version.
 
                 if (Objects.nonNull(mod.env) && Objects.equals(mod.env.client, "unsupported")) {
-                    logger.log("Found server-side only mod! Skipping " + mod.path + " in the interpretation process...");
+                    logger.log(() -> "Found server-side only mod! Skipping " + mod.path + " in the interpretation process...");
                     continue;
                 }
 
@@ -461,20 +600,67 @@ public class CDLInstance {
      * @apiNote If the method fails to gather information, the mod is left at the original state. Look for CF-PACK_MOD at the filename to get information if the gathering was successful.
      */
     public void gatherCFModInformation(int index) {
+        this.gatherCFModInformation(index, null);
+    }
+
+    /**
+     * This method is used to gather information for CF-PACK_MOD returned from {@link CDLInstance#importCFPack(CFManifest, boolean)} when data gathering was not enabled.
+     * Information is taken from the resolution cache when possible, and files resolved through the API are recorded in it.
+     * @param index Index to a mod file to gather information about.
+     * @param Resolutions {@link CFResolutionCache} to use, or null if the resolutions shouldn't be cached.
+     * @return {@code true} if information was taken from the resolution cache, otherwise {@code false}.
+     * @apiNote If the method fails to gather information, the mod is left at the original state. Look for CF-PACK_MOD at the filename to get information if the gathering was successful.
+     */
+    public boolean gatherCFModInformation(int index, @Nullable CFResolutionCache Resolutions) {
         //TODO: Create new getData() method. Replace use of Deprecated method.
         // Additionally make use of multithreading and experimental option.
         ModFile mod = this.files[index];
-        if (!ArgumentDecoder.getInstance().isPackMode() || !Objects.equals(mod.fileName, "CF-PACK_MOD")) return;
+        if (!ArgumentDecoder.getInstance().isPackMode() || !Objects.equals(mod.fileName, "CF-PACK_MOD")) return false;
+
+        if (this.applyCFResolution(index, Resolutions)) return true;
 
+        // For CF-PACK_MOD, fileLength holds project ID and downloadURL holds file ID.
+        this.requestCFModInformation(index, new CFManifest.CFModFile(mod.fileLength, Integer.parseInt(mod.downloadURL)), Resolutions);
+        return false;
+    }
+
+    /**
+     * This method is used to request information for CF-PACK_MOD from the API, with the state of the previous request.
+     * @param index Index to a mod file to request information for.
+     * @param Request {@link CFManifest.CFModFile} with project ID, file ID and error flags of the previous request.
+     * @param Resolutions {@link CFResolutionCache} to record the resolution in, or null if the resolutions shouldn't be cached.
+     * @return {@link CFManifest.CFModFile} with the result of the request, or null if the request failed.
+     * When {@link CFManifest.CFModFile#error202} or {@link CFManifest.CFModFile#error403} is set, the request should be repeated later.
+     */
+    public @Nullable CFManifest.CFModFile requestCFModInformation(int index, @NotNull CFManifest.CFModFile Request, @Nullable CFResolutionCache Resolutions) {
+        Objects.requireNonNull(Request);
         CFManifest.minecraft CFminecraft = new CFManifest.minecraft();
         CFminecraft.version = this.minecraftData.version;
         CFminecraft.modLoaders = new CFManifest.modLoaders[] {
             new CFManifest.modLoaders(this.modLoaderData.modLoader, true)
         };
 
-        CFManifest.CFModFile CFmod = new CFManifest.CFModFile(mod.fileLength, Integer.parseInt(mod.downloadURL)).getData(CFminecraft);
-        if (Objects.isNull(CFmod) || Objects.isNull(CFmod.downloadUrl)) return;
+        CFManifest.CFModFile CFmod = Request.getData(CFminecraft);
+        if (Objects.isNull(CFmod) || Objects.isNull(CFmod.downloadUrl)) return CFmod;
         this.files[index] = CFmod.toCDLModFile();
+        // Fallback to the latest version of the mod can change over time, so only exact resolutions are cached.
+        if (Objects.nonNull(Resolutions) && !CFmod.fallback) Resolutions.put(Request.projectID, Request.fileID, this.files[index]);
+        return CFmod;
+    }
+
+    /**
+     * This method is used to fill information for CF-PACK_MOD from the resolution cache, without any requests to the API.
+     * @param index Index to a mod file to fill information for.
+     * @param Resolutions {@link CFResolutionCache} to use, or null if the resolutions aren't cached.
+     * @return {@code true} if information was taken from the resolution cache, otherwise {@code false}.
+     */
+    public boolean applyCFResolution(int index, @Nullable CFResolutionCache Resolutions) {
+        ModFile mod = this.files[index];
+        if (Objects.isNull(Resolutions) || !Objects.equals(mod.fileName, "CF-PACK_MOD")) return false;
+        ModFile resolved = Resolutions.get(mod.fileLength, Integer.parseInt(mod.downloadURL));
+        if (Objects.isNull(resolved)) return false;
+        this.files[index] = resolved;
+        return true;
     }
 
     /**
@@ -593,6 +779,27 @@ public class CDLInstance {
                     Objects.nonNull(sha512);
         }
 
+        /**
+         * This method is used to check if hashes populated in both objects are equal.
+         * @param hashes Hashes to check.
+         * @return {@code true}, if no populated hash contradicts the other object, otherwise false.
+         */
+        public boolean isCompatible(@NotNull Hashes hashes) {
+            return  (Objects.isNull(this.sha1) || Objects.isNull(hashes.sha1) || this.sha1.equalsIgnoreCase(hashes.sha1)) &&
+                    (Objects.isNull(this.sha256) || Objects.isNull(hashes.sha256) || this.sha256.equalsIgnoreCase(hashes.sha256)) &&
+                    (Objects.isNull(this.sha512) || Objects.isNull(hashes.sha512) || this.sha512.equalsIgnoreCase(hashes.sha512));
+        }
+
+        /**
+         * This method is used to fill hashes missing in this object with hashes from passed object.
+         * @param hashes Hashes to take missing values from.
+         */
+        public void merge(@NotNull Hashes hashes) {
+            if (Objects.isNull(this.sha1)) this.sha1 = hashes.sha1;
+            if (Objects.isNull(this.sha256)) this.sha256 = hashes.sha256;
+            if (Objects.isNull(this.sha512)) this.sha512 = hashes.sha512;
+        }
+
         @Override
         public String toString() {
             return gson.toJson(this);
@@ -614,9 +821,23 @@ public class CDLInstance {
                     Objects.equals(this.sha256, hashes.sha256) &&
                     Objects.equals(this.sha512, hashes.sha512);
         }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.sha1, this.sha256, this.sha512);
+        }
     }
 
 
+    /**
+     * Key identifying a file in the instance, used to match files between the instance data and the cache.
+     * @param path Normalized path of the file, relative to the working directory, with forward slashes.
+     * @param fileName Name of the file.
+     * @param fileLength Size of the file.
+     * @param downloadURL Download URL of the file.
+     */
+    public record FileKey(String path, String fileName, int fileLength, String downloadURL) {}
+
     public static class ModFile {
         public String fileName;
         public String downloadURL;
@@ -646,7 +867,28 @@ public class CDLInstance {
                     Objects.equals(
                         (Objects.isNull(this.path))? "mods/" + this.fileName: this.path,
                         (Objects.isNull(modFile.path))? "mods/" + modFile.fileName: modFile.path
-                    ) && this.hashes.equals(modFile.hashes);
+                    ) && Objects.equals(this.hashes, modFile.hashes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.fileName, this.fileLength, this.downloadURL, this.getPath(), this.hashes);
+        }
+
+        /**
+         * Used to get a key identifying this file in the instance, independent of its hashes.
+         * @return {@link FileKey} with normalized path, name, size and download URL of this file.
+         */
+        public @NotNull FileKey getFileKey() {
+            return new FileKey(Path.of(this.getPath()).normalize().toString().replace('\\', '/'), this.fileName, this.fileLength, this.downloadURL);
+        }
+
+        /**
+         * Used to get the path of this file relative to the working directory. Files without a path are placed in the mods folder.
+         * @return {@link String} with the path of this file.
+         */
+        public String getPath() {
+            return (Objects.isNull(this.path))? "mods/" + this.fileName: this.path;
         }
 
         /**
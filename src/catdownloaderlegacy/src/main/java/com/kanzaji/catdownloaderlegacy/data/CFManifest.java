@@ -26,18 +26,19 @@ package com.kanzaji.catdownloaderlegacy.data;
 
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import com.kanzaji.catdownloaderlegacy.Updater;
+import com.kanzaji.catdownloaderlegacy.utils.HttpResponseCache;
 
 import org.jetbrains.annotations.ApiStatus;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class used to represent data structure for Manifest.json file.
@@ -45,7 +46,8 @@ import java.util.*;
  */
 @SuppressWarnings("unused")
 public class CFManifest {
-    public static LinkedList<String> DataGatheringWarnings = new LinkedList<>();
+    // Data gathering runs on multiple threads in the CF-Pack mode.
+    public static List<String> DataGatheringWarnings = Collections.synchronizedList(new LinkedList<>());
     public String author;
     public String name;
     public String version;
@@ -60,6 +62,11 @@ public class CFManifest {
     public static class CFModFile {
         public boolean error403 = false;
         public boolean error202 = false;
+        public boolean fallback = false;
+        private static final Duration FILE_TTL = Duration.ofDays(7);
+        private static final Duration PROJECT_TTL = Duration.ofHours(1);
+        private static final Map<String, CompletableFuture<FetchedData>> fetchedData = new ConcurrentHashMap<>();
+        private static final Gson gson = new Gson();
 
         public CFModFile() {}
         public CFModFile(int projectID, int fileID) {
@@ -96,18 +103,25 @@ public class CFManifest {
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
             try {
-                HttpsURLConnection url;
-
+                // Data about a specific file doesn't change, while the list of files of a project changes with every new release of the mod.
+                FetchedData response;
                 if (error403) {
-                    url = (HttpsURLConnection) new URL("https://api.cfwidget.com/" + projectID).openConnection();
-                    url.setUseCaches(false);
-                    url.setRequestProperty("Cache-Control", "no-store");
+                    response = fetch("https://api.cfwidget.com/" + projectID, PROJECT_TTL);
                 } else {
-                    url = (HttpsURLConnection) new URL("https://api.cfwidget.com/" + projectID + "?&version=" + fileID).openConnection();
+                    response = fetch("https://api.cfwidget.com/" + projectID + "?&version=" + fileID, FILE_TTL);
+                }
+
+                // 202 is a success code, so it has to be checked before the response is parsed as the data.
+                if (Objects.equals(response.statusCode(), 202)) {
+                    logger.warn("API returned response code 202 (Data is being generated) for project id: " + projectID + ", requesting data again later!");
+                    CFModFileData.error202 = true;
+                    CFModFileData.error403 = error403;
+                    return CFModFileData;
                 }
 
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(url.getInputStream(), StandardCharsets.UTF_8))) {
-                    data downloadData = gson.fromJson(in, data.class);
+                try {
+                    if (!Objects.equals(response.statusCode(), 200)) throw new IOException("Server returned HTTP response code: " + response.statusCode() + " for project id: " + projectID);
+                    data downloadData = response.data();
 
                     if (downloadData.download == null || error403) {
                         //TODO: Create ANOTHER Alternate method if downloadData is null.
@@ -124,10 +138,8 @@ public class CFManifest {
                                 "   > CurseForge possible file link: " + ((downloadData.urls.curseforge == null) ? downloadData.urls.project : downloadData.urls.curseforge) + "/files/" + fileID
                         );
 
-                        for (legacyFile file : downloadData.files) {
-                            Set<String> asSet = new HashSet<>(Arrays.asList(file.versions));
-
-                            if (!asSet.contains(minecraftData.version)) continue;
+                        for (legacyFile file : downloadData.getFiles(minecraftData.version)) {
+                            Set<String> asSet = file.versionSet;
 
                             if (!asSet.contains((minecraftData.modLoaders[0].id.startsWith("forge")) ? "Forge" : (minecraftData.modLoaders[0].id.startsWith("fabric")) ? "Fabric" : "Quilt")) {
                                 if ((
@@ -169,6 +181,7 @@ public class CFManifest {
                             ).replaceAll(" ", "%20");
 
                             CFModFileData.fileSize = file.filesize;
+                            CFModFileData.fallback = true;
                             break;
                         }
 
@@ -204,7 +217,7 @@ public class CFManifest {
                         throw e;
                     }
 
-                    int responseCode = url.getResponseCode();
+                    int responseCode = response.statusCode();
 
                     if (Objects.equals(responseCode, 403)) {
 
@@ -246,6 +259,39 @@ public class CFManifest {
             return CFModFileData;
         }
 
+        /**
+         * Used to get parsed data from specified endpoint. Concurrent requests for the same endpoint share one request.
+         * Only requests in flight are held in memory, later requests for the same endpoint are served by the {@link HttpResponseCache} instead.
+         * @param URL URL of the endpoint.
+         * @param TTL {@link Duration} for which the response can be taken from the {@link HttpResponseCache} without revalidation.
+         * @return {@link FetchedData} with status code of the response, and parsed data if the request was successful.
+         * @throws IOException when IO Exception occurs while requesting the data.
+         */
+        private static FetchedData fetch(String URL, Duration TTL) throws IOException {
+            CompletableFuture<FetchedData> request = new CompletableFuture<>();
+            CompletableFuture<FetchedData> inFlight = fetchedData.putIfAbsent(URL, request);
+            if (Objects.nonNull(inFlight)) {
+                try {
+                    return inFlight.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof IOException cause) throw cause;
+                    throw e;
+                }
+            }
+
+            try {
+                HttpResponseCache.Response response = HttpResponseCache.get(URL, TTL);
+                FetchedData result = new FetchedData(response.statusCode(), (response.statusCode() == 200)? gson.fromJson(response.body(), data.class): null);
+                request.complete(result);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                request.completeExceptionally(e);
+                throw e;
+            } finally {
+                fetchedData.remove(URL, request);
+            }
+        }
+
         /**
          * Used to get a file name for this {@link CFModFile} object.
          * @return {@link String} with a file name for this object.
@@ -269,12 +315,42 @@ public class CFManifest {
         public boolean primary;
     }
 
+    private record FetchedData(int statusCode, data data) {}
+
     @SuppressWarnings("MismatchedReadAndWriteOfArray")
     private static class data {
         private urls urls;
         private legacyFile[] files;
         private downloadData download;
         private String title;
+        private transient volatile Map<String, List<legacyFile>> filesByVersion;
+
+        /**
+         * Used to get files of the project for specified game version, in the order returned by the API.
+         * Files are indexed by game version on the first use, as the same data is shared by concurrent requests for files of the project.
+         * Mod loader tags are still checked per file by the caller, as the fallback takes the first compatible file in the order returned by the API, including files without any mod loader tag.
+         * @param version Game version to get the files for.
+         * @return {@link List} of the files for specified version.
+         */
+        private List<legacyFile> getFiles(String version) {
+            Map<String, List<legacyFile>> index = this.filesByVersion;
+            if (Objects.isNull(index)) {
+                synchronized (this) {
+                    index = this.filesByVersion;
+                    if (Objects.isNull(index)) {
+                        index = new HashMap<>();
+                        if (Objects.nonNull(this.files)) {
+                            for (legacyFile file : this.files) {
+                                file.versionSet = (Objects.isNull(file.versions))? Set.of(): new HashSet<>(Arrays.asList(file.versions));
+                                for (String fileVersion : file.versionSet) index.computeIfAbsent(fileVersion, (key) -> new ArrayList<>()).add(file);
+                            }
+                        }
+                        this.filesByVersion = index;
+                    }
+                }
+            }
+            return index.getOrDefault(version, List.of());
+        }
     }
 
     private static class downloadData {
@@ -296,5 +372,6 @@ public class CFManifest {
         private String name;
         private int filesize;
         private String[] versions;
+        private transient Set<String> versionSet;
     }
 }
@@ -0,0 +1,169 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds resolved download data for CurseForge files, referenced in the CF-Pack manifests only by the project and file IDs.
+ * File with specific ID never changes on CurseForge, so resolved entries don't expire and are shared between all packs.
+ * @see CFResolutionCache#load(Path)
+ */
+public class CFResolutionCache {
+    private static final LoggerCustom logger = new LoggerCustom("CF Resolution Cache");
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    public static final String FILE_NAME = "CDL-CF-Resolutions.json";
+    private static final String LOCK_EXTENSION = ".lock";
+    public static final int latestFormatVersion = 1;
+
+    public int formatVersion = latestFormatVersion;
+    public List<Entry> resolutions = new ArrayList<>();
+    private transient Map<Long, Entry> index = new ConcurrentHashMap<>();
+    private transient volatile boolean modified = false;
+
+    /**
+     * Used to load the resolution cache from specified file. Missing or broken cache results in an empty cache.
+     * @param CacheFile {@link Path} to the cache file.
+     * @return {@link CFResolutionCache} with entries from the file.
+     */
+    public static @NotNull CFResolutionCache load(@NotNull Path CacheFile) {
+        Objects.requireNonNull(CacheFile);
+        CFResolutionCache cache = read(CacheFile);
+        if (Objects.isNull(cache)) cache = new CFResolutionCache();
+        logger.log("Resolution cache loaded with " + cache.index.size() + " resolved files.");
+        return cache;
+    }
+
+    /**
+     * Used to save the resolution cache to specified file. The file is replaced atomically, when supported by the file system.
+     * Entries saved in the meantime by other processes are merged with the entries of this cache.
+     * The cache is shared between all packs and CDL processes, so reading, merging and writing is done under an exclusive lock of a sibling lock file.
+     * @param CacheFile {@link Path} to the cache file.
+     * @throws IOException when IO Exception occurs.
+     */
+    public synchronized void save(@NotNull Path CacheFile) throws IOException {
+        Objects.requireNonNull(CacheFile);
+        if (!this.modified) {
+            logger.log("Resolution cache wasn't modified, saving skipped.");
+            return;
+        }
+
+        FileUtils.createRequiredPathToAFile(CacheFile.toAbsolutePath());
+        // Lock file is never deleted, as that would allow two processes to lock different files for the same cache.
+        // Closing the channel releases the lock.
+        try (FileChannel lockChannel = FileChannel.open(Path.of(CacheFile.toAbsolutePath() + LOCK_EXTENSION), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            lockChannel.lock();
+            CFResolutionCache current = read(CacheFile);
+            if (Objects.nonNull(current)) current.index.forEach(this.index::putIfAbsent);
+            this.resolutions = new ArrayList<>(this.index.values());
+            FileUtils.writeAtomically(CacheFile, (out) -> out.write(gson.toJson(this).getBytes(StandardCharsets.UTF_8)));
+        }
+        this.modified = false;
+        logger.log("Resolution cache with " + this.index.size() + " resolved files saved.");
+    }
+
+    /**
+     * Used to get resolved file for specified project and file ID.
+     * @param ProjectID ID of the project.
+     * @param FileID ID of the file.
+     * @return new {@link CDLInstance.ModFile} with resolved data, or null if the file wasn't resolved before.
+     */
+    public @Nullable CDLInstance.ModFile get(int ProjectID, int FileID) {
+        Entry entry = this.index.get(key(ProjectID, FileID));
+        if (Objects.isNull(entry)) return null;
+        return new CDLInstance.ModFile(entry.fileName, entry.downloadUrl, entry.fileSize);
+    }
+
+    /**
+     * Used to record resolved file for specified project and file ID.
+     * @param ProjectID ID of the project.
+     * @param FileID ID of the file.
+     * @param File {@link CDLInstance.ModFile} with resolved data.
+     */
+    public void put(int ProjectID, int FileID, @NotNull CDLInstance.ModFile File) {
+        Objects.requireNonNull(File);
+        Entry entry = new Entry();
+        entry.projectID = ProjectID;
+        entry.fileID = FileID;
+        entry.fileName = File.fileName;
+        entry.downloadUrl = File.downloadURL;
+        entry.fileSize = File.fileLength;
+        this.index.put(key(ProjectID, FileID), entry);
+        this.modified = true;
+    }
+
+    private static @Nullable CFResolutionCache read(@NotNull Path CacheFile) {
+        if (!Files.exists(CacheFile)) return null;
+        try {
+            CFResolutionCache cache = gson.fromJson(Files.readString(CacheFile), CFResolutionCache.class);
+            if (Objects.isNull(cache) || cache.formatVersion != latestFormatVersion) {
+                logger.warn("Resolution cache at \"" + CacheFile.toAbsolutePath() + "\" is in a different version! It will be recreated.");
+                return null;
+            }
+            cache.index = new ConcurrentHashMap<>();
+            if (Objects.nonNull(cache.resolutions)) {
+                for (Entry entry : cache.resolutions) {
+                    if (Objects.isNull(entry) || Objects.isNull(entry.downloadUrl) || Objects.isNull(entry.fileName)) continue;
+                    cache.index.put(key(entry.projectID, entry.fileID), entry);
+                }
+            }
+            return cache;
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while parsing the resolution cache at \"" + CacheFile.toAbsolutePath() + "\"! It will be recreated.", e);
+            return null;
+        }
+    }
+
+    private static long key(int ProjectID, int FileID) {
+        return ((long) ProjectID << 32) | Integer.toUnsignedLong(FileID);
+    }
+
+    /**
+     * Single resolved CurseForge file.
+     */
+    public static class Entry {
+        public int projectID;
+        public int fileID;
+        public String fileName;
+        public String downloadUrl;
+        public int fileSize;
+    }
+}
@@ -0,0 +1,208 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileUtils;
+import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * This class holds a ledger of all files installed by Cat-Downloader in the working directory.
+ * Used to remove files that are no longer in the instance from any folder, and to skip hashing of files that didn't change since they were installed.
+ * @see InstalledFilesLedger#load(Path, Path)
+ */
+public class InstalledFilesLedger {
+    private static final LoggerCustom logger = new LoggerCustom("Installed Files Ledger");
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    public static final int latestFormatVersion = 1;
+
+    public int formatVersion = latestFormatVersion;
+    public String workingDirectory;
+    public List<Entry> files = new ArrayList<>();
+    private transient Map<String, Entry> index;
+
+    /**
+     * Used to get the path of the ledger for specified working directory. Each working directory has its own ledger.
+     * @param CachePath {@link Path} to the cache directory.
+     * @param WorkingDirectory {@link Path} to the working directory.
+     * @return {@link Path} to the ledger file.
+     */
+    public static @NotNull Path getLedgerPath(@NotNull Path CachePath, @NotNull Path WorkingDirectory) {
+        return Path.of(CachePath.toString(), "CDL-Ledger-" + FileVerUtils.getStringHash(WorkingDirectory.toAbsolutePath().normalize().toString()).substring(0, 16) + ".json");
+    }
+
+    /**
+     * Used to load the ledger from specified file. Missing or broken ledger results in an empty ledger.
+     * @param LedgerFile {@link Path} to the ledger file.
+     * @param WorkingDirectory {@link Path} to the working directory the ledger is meant for.
+     * @return {@link InstalledFilesLedger} with entries from the file.
+     */
+    public static @NotNull InstalledFilesLedger load(@NotNull Path LedgerFile, @NotNull Path WorkingDirectory) {
+        Objects.requireNonNull(LedgerFile);
+        String workingDirectory = WorkingDirectory.toAbsolutePath().normalize().toString();
+        InstalledFilesLedger ledger = null;
+
+        if (Files.exists(LedgerFile)) {
+            try {
+                ledger = gson.fromJson(Files.readString(LedgerFile), InstalledFilesLedger.class);
+                if (Objects.isNull(ledger) || ledger.formatVersion != latestFormatVersion || !Objects.equals(ledger.workingDirectory, workingDirectory)) {
+                    logger.warn("Ledger at \"" + LedgerFile.toAbsolutePath() + "\" is in a different version or for a different working directory! It will be recreated.");
+                    ledger = null;
+                }
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while parsing the ledger at \"" + LedgerFile.toAbsolutePath() + "\"! It will be recreated.", e);
+                ledger = null;
+            }
+        }
+
+        if (Objects.isNull(ledger)) {
+            ledger = new InstalledFilesLedger();
+            ledger.workingDirectory = workingDirectory;
+        }
+        if (Objects.isNull(ledger.files)) ledger.files = new ArrayList<>();
+
+        ledger.index = new LinkedHashMap<>();
+        for (Entry entry : ledger.files) {
+            if (Objects.isNull(entry) || Objects.isNull(entry.path)) continue;
+            ledger.index.put(entry.path, entry);
+        }
+        logger.summary("Ledger loaded with " + ledger.index.size() + " installed files.");
+        return ledger;
+    }
+
+    /**
+     * Used to save the ledger to specified file. The file is replaced atomically, when supported by the file system.
+     * @param LedgerFile {@link Path} to the ledger file.
+     * @throws IOException when IO Exception occurs.
+     */
+    public synchronized void save(@NotNull Path LedgerFile) throws IOException {
+        Objects.requireNonNull(LedgerFile);
+        this.files = new ArrayList<>(this.index.values());
+        FileUtils.writeAtomically(LedgerFile, (out) -> out.write(gson.toJson(this).getBytes(StandardCharsets.UTF_8)));
+        logger.summary("Ledger with " + this.index.size() + " installed files saved.");
+    }
+
+    /**
+     * Used to get an entry for specified path.
+     * @param FilePath {@link String} with normalized path, relative to the working directory. See {@link CDLInstance.FileKey#path()}.
+     * @return {@link Entry} for the path, or null if the path isn't in the ledger.
+     */
+    public synchronized @Nullable Entry get(@NotNull String FilePath) {
+        return this.index.get(FilePath);
+    }
+
+    /**
+     * Used to record an installed file in the ledger.
+     * @param FilePath {@link String} with normalized path, relative to the working directory.
+     * @param Attributes {@link BasicFileAttributes} of the installed file.
+     * @param Hashes {@link CDLInstance.Hashes} of the installed file.
+     */
+    public synchronized void put(@NotNull String FilePath, @NotNull BasicFileAttributes Attributes, @Nullable CDLInstance.Hashes Hashes) {
+        Entry entry = new Entry();
+        entry.path = FilePath;
+        entry.size = Attributes.size();
+        entry.lastModified = Attributes.lastModifiedTime().toMillis();
+        if (Objects.nonNull(Hashes)) {
+            entry.hashes = new CDLInstance.Hashes();
+            entry.hashes.sha1 = Hashes.sha1;
+            entry.hashes.sha256 = Hashes.sha256;
+            entry.hashes.sha512 = Hashes.sha512;
+        }
+        this.index.put(FilePath, entry);
+    }
+
+    /**
+     * Used to remove a file from the ledger.
+     * @param FilePath {@link String} with normalized path, relative to the working directory.
+     */
+    public synchronized void remove(@NotNull String FilePath) {
+        this.index.remove(FilePath);
+    }
+
+    /**
+     * Used to get paths of all files in the ledger.
+     * @return {@link List} with normalized paths, relative to the working directory.
+     */
+    public synchronized @NotNull List<String> getPaths() {
+        return new ArrayList<>(this.index.keySet());
+    }
+
+    /**
+     * This class holds information about a single installed file.
+     */
+    public static class Entry {
+        public String path;
+        public long size;
+        public long lastModified;
+        public CDLInstance.Hashes hashes;
+
+        /**
+         * Used to check if the file wasn't modified since it was recorded in the ledger.
+         * @param Attributes {@link BasicFileAttributes} of the file on the disk.
+         * @return {@code true} if size and modification time of the file match the entry, otherwise {@code false}.
+         */
+        @Contract(value = "null -> false", pure = true)
+        public boolean isUnchanged(@Nullable BasicFileAttributes Attributes) {
+            if (Objects.isNull(Attributes) || !Attributes.isRegularFile()) return false;
+            return this.size == Attributes.size() && this.lastModified == Attributes.lastModifiedTime().toMillis();
+        }
+
+        /**
+         * Used to check if the hashes in this entry match expected hashes. At least one hash has to be present in both.
+         * @param Expected {@link CDLInstance.Hashes} with expected values.
+         * @return {@code true} if all hashes present in both match, and at least one of them is present, otherwise {@code false}.
+         */
+        @Contract(value = "null -> false", pure = true)
+        public boolean matches(@Nullable CDLInstance.Hashes Expected) {
+            if (Objects.isNull(Expected) || Objects.isNull(this.hashes)) return false;
+            boolean compared = false;
+            String[][] pairs = {
+                {Expected.sha512, this.hashes.sha512},
+                {Expected.sha256, this.hashes.sha256},
+                {Expected.sha1, this.hashes.sha1}
+            };
+            for (String[] pair : pairs) {
+                if (Objects.isNull(pair[0]) || Objects.isNull(pair[1])) continue;
+                if (!Objects.equals(pair[0], pair[1])) return false;
+                compared = true;
+            }
+            return compared;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.exceptions.FormatVersionMismatchException;
+import com.kanzaji.catdownloaderlegacy.exceptions.UnknownFormatException;
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+import com.kanzaji.catdownloaderlegacy.utils.FileVerUtils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * This class is used to keep binary caches of multiple instances in one cache directory.
+ * Every instance has its own entry, keyed by the identity of the instance:
+ * <ul>
+ *     <li>Name of the modpack, mode and the working directory, which together identify the instance.</li>
+ *     <li>Version of the modpack, which identifies the state of the instance.</li>
+ * </ul>
+ * Entries are guarded by one file lock per instance, so multiple CDL processes can read and write the same store at once.
+ * Writers replace entries atomically, and invalidation of one entry doesn't touch entries of other instances.
+ * Entries of previous versions of an instance are used as a fallback, until superseded by the entry for the current version.
+ * @see BinaryInstanceCache
+ */
+public class InstanceCacheStore {
+    private static final LoggerCustom logger = new LoggerCustom("Instance Cache Store");
+    public static final String DIRECTORY_NAME = "CDL-Instance-caches";
+    private static final String ENTRY_EXTENSION = ".bin";
+    private static final String LOCK_EXTENSION = ".lock";
+    private final Path storeDirectory;
+    private final String workingDirectory;
+    private final String mode;
+
+    /**
+     * Used to create a store in the specified cache directory.
+     * @param CachePath {@link Path} to the cache directory. Store directory is created inside of it.
+     * @param WorkingDirectory {@link Path} to the working directory of the instance.
+     * @param Mode Mode the instance is installed with.
+     * @throws IOException when IO Exception occurs while creating the store directory.
+     */
+    public InstanceCacheStore(@NotNull Path CachePath, @NotNull Path WorkingDirectory, @NotNull String Mode) throws IOException {
+        this.storeDirectory = Path.of(Objects.requireNonNull(CachePath).toString(), DIRECTORY_NAME);
+        this.workingDirectory = Objects.requireNonNull(WorkingDirectory).toAbsolutePath().normalize().toString();
+        this.mode = Objects.requireNonNull(Mode);
+        Files.createDirectories(this.storeDirectory);
+    }
+
+    /**
+     * Used to get the key of the entry for specified instance.
+     * Key consists of the instance hash (name, mode, working directory) and the version hash, separated with "-".
+     * @param Instance {@link CDLInstance} to get the key for.
+     * @return String with the key.
+     */
+    public @NotNull String getKey(@NotNull CDLInstance Instance) {
+        Objects.requireNonNull(Instance);
+        CDLInstance.ModpackData modpack = Instance.modpackData;
+        String name = (Objects.isNull(modpack))? Instance.instanceName: modpack.name;
+        String version = (Objects.isNull(modpack))? null: modpack.version;
+        return hash(name + "\n" + this.mode + "\n" + this.workingDirectory) + "-" + hash(String.valueOf(version));
+    }
+
+    /**
+     * Used to get the instance hash of specified instance, shared by entries of all its versions.
+     * @param Instance {@link CDLInstance} to get the instance hash for.
+     * @return String with the instance hash.
+     */
+    private @NotNull String getInstanceHash(@NotNull CDLInstance Instance) {
+        String key = getKey(Instance);
+        return key.substring(0, key.indexOf('-'));
+    }
+
+    /**
+     * Used to get the path to the entry for specified instance.
+     * @param Instance {@link CDLInstance} to get the entry for.
+     * @return {@link Path} to the entry. Entry doesn't have to exist.
+     */
+    public @NotNull Path getEntryPath(@NotNull CDLInstance Instance) {
+        return Path.of(this.storeDirectory.toString(), getKey(Instance) + ENTRY_EXTENSION);
+    }
+
+    /**
+     * Used to open the entry for specified instance.
+     * When the instance doesn't have an entry for its version, the most recent entry of the same instance is opened instead,
+     * so hashes of the files that didn't change between the versions can be reconciled.
+     * @param Instance {@link CDLInstance} to open the entry for.
+     * @return {@link BinaryInstanceCache} for the entry, or null if the instance doesn't have any entry.
+     * @throws IOException when IO Exception occurs.
+     * @throws UnknownFormatException when the entry is corrupted.
+     * @throws FormatVersionMismatchException when the entry is in a different format version.
+     */
+    public @Nullable BinaryInstanceCache open(@NotNull CDLInstance Instance) throws IOException, UnknownFormatException, FormatVersionMismatchException {
+        InstanceLock lock = lock(Instance, true);
+        try {
+            Path entry = getEntryPath(Instance);
+            if (!Files.exists(entry)) {
+                List<Path> previousEntries = getInstanceEntries(Instance);
+                if (previousEntries.isEmpty()) return null;
+                entry = previousEntries.get(0);
+                logger.log("Entry for this version of the instance doesn't exist, falling back to the entry of a previous version.");
+            }
+            logger.log("Opening cache entry \"" + entry.getFileName() + "\"...");
+            // Entry is read into memory, so it doesn't depend on the file once the lock is released.
+            return BinaryInstanceCache.open(entry);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Used to write the entry for specified instance, replacing the previous one.
+     * Entries of previous versions of the same instance are superseded by the new entry, and removed under the same lock.
+     * @param Instance {@link CDLInstance} to write.
+     * @throws IOException when IO Exception occurs.
+     */
+    public void write(@NotNull CDLInstance Instance) throws IOException {
+        Path entry = getEntryPath(Instance);
+        InstanceLock lock = lock(Instance, false);
+        try {
+            BinaryInstanceCache.write(Instance, entry);
+            logger.log("Cache entry \"" + entry.getFileName() + "\" has been written.");
+
+            for (Path previousEntry : getInstanceEntries(Instance)) {
+                if (previousEntry.equals(entry)) continue;
+                if (Files.deleteIfExists(previousEntry)) logger.log("Superseded cache entry \"" + previousEntry.getFileName() + "\" has been removed.");
+            }
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Used to get all entries of specified instance, regardless of the version.
+     * @param Instance {@link CDLInstance} to get the entries for.
+     * @return {@link List} of entries, sorted from the most recently modified one.
+     * @throws IOException when IO Exception occurs.
+     */
+    private @NotNull List<Path> getInstanceEntries(@NotNull CDLInstance Instance) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.storeDirectory, getInstanceHash(Instance) + "-*" + ENTRY_EXTENSION)) {
+            stream.forEach(entries::add);
+        }
+        Map<Path, FileTime> modified = new HashMap<>();
+        for (Path entry : entries) {
+            try {
+                modified.put(entry, Files.getLastModifiedTime(entry));
+            } catch (NoSuchFileException e) {
+                modified.put(entry, FileTime.fromMillis(0));
+            }
+        }
+        entries.sort(Comparator.comparing(modified::get, Comparator.reverseOrder()));
+        return entries;
+    }
+
+    /**
+     * Used to invalidate the entry for specified instance. Entries of other instances are not affected.
+     * @param Instance {@link CDLInstance} to invalidate the entry for.
+     * @throws IOException when IO Exception occurs.
+     */
+    public void invalidate(@NotNull CDLInstance Instance) throws IOException {
+        Path entry = getEntryPath(Instance);
+        InstanceLock lock = lock(Instance, false);
+        try {
+            if (Files.deleteIfExists(entry)) logger.log("Cache entry \"" + entry.getFileName() + "\" has been invalidated.");
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Used to acquire a lock guarding all entries of specified instance.
+     * There is one lock file per instance, so their count doesn't grow with the versions of the instance.
+     * Lock files are never deleted, as that would allow two processes to lock different files for the same instance.
+     * @param Instance {@link CDLInstance} to lock the entries of.
+     * @param Shared Determines if the lock is shared (readers), or exclusive (writers).
+     * @return {@link InstanceLock} holding the lock until closed.
+     * @throws IOException when IO Exception occurs.
+     */
+    private @NotNull InstanceLock lock(@NotNull CDLInstance Instance, boolean Shared) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(this.storeDirectory.toString(), getInstanceHash(Instance) + LOCK_EXTENSION), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new InstanceLock(channel, channel.lock(0, Long.MAX_VALUE, Shared));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static @NotNull String hash(@NotNull String Value) {
+        return FileVerUtils.getStringHash(Value).substring(0, 16);
+    }
+
+    private record InstanceLock(FileChannel channel, FileLock lock) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            try {
+                this.lock.release();
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.data;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class is used to read manifest files with a streaming {@link JsonReader}.
+ * Only fields used by the {@link CDLInstance} importers are read, everything else is skipped without being bound to objects.
+ * Files are read straight from the disk, so memory used while parsing doesn't depend on the size of skipped metadata.
+ * @see ManifestReader#readModrinthIndex(Path)
+ * @see ManifestReader#readCFManifest(Path)
+ * @see ManifestReader#readCFInstance(Path)
+ */
+public class ManifestReader {
+    private static final LoggerCustom logger = new LoggerCustom("Manifest Reader");
+
+    /**
+     * Used to read Modrinth Index file.
+     * @param File {@link Path} to the modrinth.index.json file.
+     * @return {@link MRIndex} with fields required for importing.
+     * @throws IOException when IO Exception occurs, or the file isn't valid JSON.
+     */
+    public static @NotNull MRIndex readModrinthIndex(@NotNull Path File) throws IOException {
+        Objects.requireNonNull(File);
+        logger.log("Reading Modrinth Index at \"" + File.toAbsolutePath() + "\"...");
+        MRIndex index = new MRIndex();
+        try (JsonReader reader = open(File)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "formatVersion" -> index.formatVersion = nextNumber(reader);
+                    case "game" -> index.game = nextString(reader);
+                    case "versionId" -> index.versionId = nextString(reader);
+                    case "name" -> index.name = nextString(reader);
+                    case "summary" -> index.summary = nextString(reader);
+                    case "dependencies" -> index.dependencies = readMRDependencies(reader);
+                    case "files" -> {
+                        List<MRIndex.MRModFile> files = new ArrayList<>();
+                        if (beginArray(reader)) {
+                            while (reader.hasNext()) files.add(readMRModFile(reader));
+                            reader.endArray();
+                        }
+                        index.files = files.toArray(new MRIndex.MRModFile[0]);
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        logger.log("Modrinth Index read with " + ((Objects.isNull(index.files))? 0: index.files.length) + " files.");
+        return index;
+    }
+
+    /**
+     * Used to read CurseForge Manifest file.
+     * @param File {@link Path} to the manifest.json file.
+     * @return {@link CFManifest} with fields required for importing.
+     * @throws IOException when IO Exception occurs, or the file isn't valid JSON.
+     */
+    public static @NotNull CFManifest readCFManifest(@NotNull Path File) throws IOException {
+        Objects.requireNonNull(File);
+        logger.log("Reading CurseForge Manifest at \"" + File.toAbsolutePath() + "\"...");
+        CFManifest manifest;
+        try (JsonReader reader = open(File)) {
+            manifest = readCFManifest(reader, true);
+        }
+        logger.log("CurseForge Manifest read with " + ((Objects.isNull(manifest.files))? 0: manifest.files.length) + " files.");
+        return manifest;
+    }
+
+    /**
+     * Used to read CurseForge MinecraftInstance file. From every installed addon, only the installed file is read.
+     * @param File {@link Path} to the minecraftinstance.json file.
+     * @return {@link CFMinecraftInstance} with fields required for importing.
+     * @throws IOException when IO Exception occurs, or the file isn't valid JSON.
+     */
+    public static @NotNull CFMinecraftInstance readCFInstance(@NotNull Path File) throws IOException {
+        Objects.requireNonNull(File);
+        logger.log("Reading CurseForge MinecraftInstance at \"" + File.toAbsolutePath() + "\"...");
+        CFMinecraftInstance instance = new CFMinecraftInstance();
+        try (JsonReader reader = open(File)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name" -> instance.name = nextString(reader);
+                    case "baseModLoader" -> instance.baseModLoader = readCFBaseModLoader(reader);
+                    // Files of the manifest are not used by the importer, installed addons hold the actual files.
+                    case "manifest" -> instance.manifest = (reader.peek() == JsonToken.BEGIN_OBJECT)? readCFManifest(reader, false): skipNull(reader);
+                    case "installedAddons" -> {
+                        List<CFMinecraftInstance.installedAddons> addons = new ArrayList<>();
+                        if (beginArray(reader)) {
+                            while (reader.hasNext()) addons.add(readCFInstalledAddon(reader));
+                            reader.endArray();
+                        }
+                        instance.installedAddons = addons.toArray(new CFMinecraftInstance.installedAddons[0]);
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        logger.log("CurseForge MinecraftInstance read with " + ((Objects.isNull(instance.installedAddons))? 0: instance.installedAddons.length) + " installed addons.");
+        return instance;
+    }
+
+    private static @NotNull JsonReader open(@NotNull Path File) throws IOException {
+        JsonReader reader = new JsonReader(Files.newBufferedReader(File, StandardCharsets.UTF_8));
+        // Same leniency as Gson#fromJson(), which was used for the manifests before.
+        reader.setLenient(true);
+        return reader;
+    }
+
+    private static @Nullable MRIndex.MRDependencies readMRDependencies(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        MRIndex.MRDependencies dependencies = new MRIndex.MRDependencies();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "minecraft" -> dependencies.minecraft = nextString(reader);
+                case "fabric-loader" -> dependencies.fabric = nextString(reader);
+                case "quilt-loader" -> dependencies.quilt = nextString(reader);
+                case "forge" -> dependencies.forge = nextString(reader);
+                case "neo-forge" -> dependencies.neoforge = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return dependencies;
+    }
+
+    private static @Nullable MRIndex.MRModFile readMRModFile(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        MRIndex.MRModFile file = new MRIndex.MRModFile();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "fileSize" -> file.fileSize = nextNumber(reader);
+                case "path" -> file.path = nextString(reader);
+                case "downloads" -> {
+                    List<String> downloads = new ArrayList<>();
+                    if (beginArray(reader)) {
+                        while (reader.hasNext()) downloads.add(nextString(reader));
+                        reader.endArray();
+                    }
+                    file.downloads = downloads.toArray(new String[0]);
+                }
+                case "hashes" -> {
+                    if (!beginObject(reader)) break;
+                    file.hashes = new CDLInstance.Hashes();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "sha1" -> file.hashes.sha1 = nextString(reader);
+                            case "sha256" -> file.hashes.sha256 = nextString(reader);
+                            case "sha512" -> file.hashes.sha512 = nextString(reader);
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                case "env" -> {
+                    if (!beginObject(reader)) break;
+                    file.env = new MRIndex.MRModFile.env();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "client" -> file.env.client = nextString(reader);
+                            case "server" -> file.env.server = nextString(reader);
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return file;
+    }
+
+    private static @NotNull CFManifest readCFManifest(@NotNull JsonReader reader, boolean readFiles) throws IOException {
+        CFManifest manifest = new CFManifest();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "author" -> manifest.author = nextString(reader);
+                case "name" -> manifest.name = nextString(reader);
+                case "version" -> manifest.version = nextString(reader);
+                case "overrides" -> manifest.overrides = nextString(reader);
+                case "minecraft" -> manifest.minecraft = readCFMinecraft(reader);
+                case "files" -> {
+                    if (!readFiles) {
+                        reader.skipValue();
+                        break;
+                    }
+                    List<CFManifest.CFModFile> files = new ArrayList<>();
+                    if (beginArray(reader)) {
+                        while (reader.hasNext()) files.add(readCFModFile(reader));
+                        reader.endArray();
+                    }
+                    manifest.files = files.toArray(new CFManifest.CFModFile[0]);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return manifest;
+    }
+
+    private static @Nullable CFManifest.minecraft readCFMinecraft(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        CFManifest.minecraft minecraft = new CFManifest.minecraft();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version" -> minecraft.version = nextString(reader);
+                case "modLoaders" -> {
+                    List<CFManifest.modLoaders> modLoaders = new ArrayList<>();
+                    if (beginArray(reader)) {
+                        while (reader.hasNext()) {
+                            if (!beginObject(reader)) {
+                                modLoaders.add(null);
+                                continue;
+                            }
+                            String id = null;
+                            boolean primary = false;
+                            while (reader.hasNext()) {
+                                switch (reader.nextName()) {
+                                    case "id" -> id = nextString(reader);
+                                    case "primary" -> primary = nextBoolean(reader);
+                                    default -> reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+                            modLoaders.add(new CFManifest.modLoaders(id, primary));
+                        }
+                        reader.endArray();
+                    }
+                    minecraft.modLoaders = modLoaders.toArray(new CFManifest.modLoaders[0]);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return minecraft;
+    }
+
+    private static @Nullable CFManifest.CFModFile readCFModFile(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        CFManifest.CFModFile file = new CFManifest.CFModFile();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "projectID" -> file.projectID = nextInt(reader);
+                case "fileID" -> file.fileID = nextInt(reader);
+                case "required" -> file.required = nextBoolean(reader);
+                case "downloadUrl" -> file.downloadUrl = nextString(reader);
+                case "fileSize" -> file.fileSize = nextInt(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return file;
+    }
+
+    private static @Nullable CFMinecraftInstance.baseModLoader readCFBaseModLoader(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        CFMinecraftInstance.baseModLoader modLoader = new CFMinecraftInstance.baseModLoader();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name" -> modLoader.name = nextString(reader);
+                case "minecraftVersion" -> modLoader.minecraftVersion = nextString(reader);
+                case "forgeVersion" -> modLoader.forgeVersion = nextString(reader);
+                case "fabricVersion" -> modLoader.fabricVersion = nextString(reader);
+                case "quiltVersion" -> modLoader.quiltVersion = nextString(reader);
+                case "neoForgeVersion" -> modLoader.neoForgeVersion = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return modLoader;
+    }
+
+    private static @Nullable CFMinecraftInstance.installedAddons readCFInstalledAddon(@NotNull JsonReader reader) throws IOException {
+        if (!beginObject(reader)) return null;
+        CFMinecraftInstance.installedAddons addon = new CFMinecraftInstance.installedAddons();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "addonID" -> addon.addonID = nextNumber(reader);
+                case "installedFile" -> {
+                    if (!beginObject(reader)) break;
+                    addon.installedFile = new CFMinecraftInstance.AddonFile();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "id" -> addon.installedFile.id = nextNumber(reader);
+                            case "fileLength" -> addon.installedFile.fileLength = nextNumber(reader);
+                            case "downloadUrl" -> addon.installedFile.downloadUrl = nextString(reader);
+                            case "fileName" -> addon.installedFile.fileName = nextString(reader);
+                            // Modules, fingerprints, dependencies and other metadata are skipped.
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return addon;
+    }
+
+    /**
+     * Used to begin an object, or consume null in its place.
+     * @return {@code true} if the object was started, {@code false} if the value was null.
+     */
+    private static boolean beginObject(@NotNull JsonReader reader) throws IOException {
+        if (skipNull(reader) == null && reader.peek() != JsonToken.BEGIN_OBJECT) return false;
+        reader.beginObject();
+        return true;
+    }
+
+    /**
+     * Used to begin an array, or consume null in its place.
+     * @return {@code true} if the array was started, {@code false} if the value was null.
+     */
+    private static boolean beginArray(@NotNull JsonReader reader) throws IOException {
+        if (skipNull(reader) == null && reader.peek() != JsonToken.BEGIN_ARRAY) return false;
+        reader.beginArray();
+        return true;
+    }
+
+    /**
+     * Used to consume a null value, if it is the next token.
+     * @return Always null.
+     */
+    private static <T> @Nullable T skipNull(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) reader.nextNull();
+        return null;
+    }
+
+    private static @Nullable String nextString(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) return skipNull(reader);
+        return reader.nextString();
+    }
+
+    private static @Nullable Number nextNumber(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) return skipNull(reader);
+        String value = reader.nextString();
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return Double.valueOf(value);
+        }
+    }
+
+    private static int nextInt(@NotNull JsonReader reader) throws IOException {
+        Number value = nextNumber(reader);
+        return (Objects.isNull(value))? 0: value.intValue();
+    }
+
+    private static boolean nextBoolean(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) return Objects.nonNull(skipNull(reader));
+        if (reader.peek() == JsonToken.STRING) return Boolean.parseBoolean(reader.nextString());
+        return reader.nextBoolean();
+    }
+}
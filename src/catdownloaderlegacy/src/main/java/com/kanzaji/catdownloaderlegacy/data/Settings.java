@@ -40,14 +40,23 @@ public class Settings {
             "workingDirectory",
             "logDirectory",
             "threadCount",
+            "ioThreadCount",
+            "hashThreadCount",
+            "resolverThreadCount",
+            "cfRequestRate",
             "downloadAttempts",
             "logStockpileSize",
+            "logLevel",
             "isLoggerActive",
             "shouldStockpileLogs",
             "shouldCompressLogFiles",
+            "isEventLogActive",
             "isUpdaterActive",
             "isFileSizeVerificationActive",
             "isHashVerificationActive",
+            "isDirectIOVerificationActive",
+            "shouldSortVerificationByLocality",
+            "overridesConflictPolicy",
             "modBlackList",
             "dataCache",
             "dataCacheDirectory"
@@ -56,17 +65,26 @@ public class Settings {
     public String mode;
     public String workingDirectory;
     public String logDirectory;
+    public String logLevel;
     public String dataCacheDirectory;
     public int threadCount;
+    public int ioThreadCount = 16;
+    public int hashThreadCount;
+    public int resolverThreadCount = 8;
+    public int cfRequestRate = 10;
     public int downloadAttempts;
     public int logStockpileSize;
     public boolean dataCache;
     public boolean isLoggerActive;
     public boolean shouldStockpileLogs;
     public boolean shouldCompressLogFiles;
+    public boolean isEventLogActive;
     public boolean isUpdaterActive;
     public boolean isFileSizeVerificationActive;
     public boolean isHashVerificationActive;
+    public boolean isDirectIOVerificationActive;
+    public boolean shouldSortVerificationByLocality;
+    public String overridesConflictPolicy;
     public BlackList<String> modBlackList;
     public boolean experimental;
 
@@ -0,0 +1,52 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Signals that a read with Direct I/O failed, even though the file was opened with Direct I/O successfully.
+ * Some file systems accept Direct I/O while opening the file, and fail every read of it.
+ */
+public class DirectIOException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final long bytesRead;
+
+    /**
+     * Constructs DirectIOException with the specified detail message, cause and amount of bytes read before the failure.
+     */
+    public DirectIOException(String msg, Throwable e, long BytesRead) {
+        super(msg, e);
+        this.bytesRead = BytesRead;
+    }
+
+    /**
+     * Used to get the amount of bytes read and passed on before the failure.
+     * @return {@link Long} with the amount of bytes. When 0, nothing of the file was passed on yet.
+     */
+    public long getBytesRead() {
+        return this.bytesRead;
+    }
+}
@@ -0,0 +1,234 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.loggers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * This class is used by the {@link Logger} to write messages to the log file from a single background thread.
+ * Threads logging messages only put them into a lock-free ring buffer, and the writer thread appends them in batches to a log file kept open.
+ * <h3>Overload policy</h3>
+ * When the ring buffer is full, droppable messages (INFO level) are discarded and counted, and a note with the amount of lost messages is written once there is space again.
+ * Messages of higher levels are never dropped, the logging thread waits for the writer instead.
+ * <p>
+ * While no log file is open, messages are kept in memory until one is opened, up to {@link AsyncAppender#PENDING_BYTES}.
+ * Above that, droppable messages are discarded and counted the same way. Above four times that, all messages are discarded, so the memory use stays bounded.
+ * Messages that fail to be written are counted as dropped as well.
+ */
+final class AsyncAppender {
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int PENDING_BYTES = 16 * BATCH_BYTES;
+
+    // Bounded multi-producer queue. Each slot has a sequence number, telling producers and the writer if the slot is free or filled.
+    private final AtomicReferenceArray<String> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    // Written before the sequence of the slot is published, so the writer sees it together with the message.
+    private final boolean[] droppableSlots = new boolean[CAPACITY];
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head = 0;
+    private volatile long written = 0;
+
+    private final Object channelLock = new Object();
+    private final StringBuilder batch = new StringBuilder(BATCH_BYTES);
+    // Accessed only by the writer thread.
+    private int batchMessages = 0;
+    private boolean lastDroppable = false;
+    private FileChannel channel = null;
+    private volatile boolean channelOpen = false;
+    private final Thread writer;
+    private final LongFunction<String> droppedNotice;
+
+    /**
+     * Constructor of the appender. Starts the writer thread.
+     * @param DroppedNotice {@link LongFunction} creating a message about the amount of dropped messages.
+     */
+    AsyncAppender(@NotNull LongFunction<String> DroppedNotice) {
+        this.droppedNotice = Objects.requireNonNull(DroppedNotice);
+        for (int i = 0; i < CAPACITY; i++) sequences.set(i, i);
+        writer = new Thread(this::drain, "CDL-Log-Writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "CDL-Log-Flush"));
+    }
+
+    /**
+     * Used to open the log file the messages are appended to. Messages logged while no file is open are kept until one is opened.
+     * @param LogFile {@link Path} to the log file. Created if it doesn't exist.
+     * @throws IOException when IO Exception occurs.
+     */
+    void open(@NotNull Path LogFile) throws IOException {
+        Objects.requireNonNull(LogFile);
+        synchronized (channelLock) {
+            if (Objects.nonNull(channel)) channel.close();
+            channel = null;
+            channelOpen = false;
+            channel = FileChannel.open(LogFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channelOpen = true;
+        }
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Used to write all pending messages and close the log file, so it can be moved or deleted.
+     * @throws IOException when IO Exception occurs.
+     */
+    void close() throws IOException {
+        flush();
+        synchronized (channelLock) {
+            channelOpen = false;
+            if (Objects.nonNull(channel)) channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Used to add a message to the queue. Never blocks for droppable messages.
+     * @param Message {@link String} with the complete message, including the line separator.
+     * @param Droppable if {@code true}, the message is discarded when the queue is full.
+     */
+    void append(@NotNull String Message, boolean Droppable) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & MASK);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, Message);
+                    droppableSlots[index] = Droppable;
+                    sequences.set(index, position + 1);
+                    return;
+                }
+            } else if (difference < 0) {
+                // Queue is full.
+                LockSupport.unpark(writer);
+                if (Droppable) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }
+    }
+
+    /**
+     * Used to wait until all messages added before the call are written to the log file.
+     * Returns without waiting when no log file is open, or when called from the writer thread.
+     */
+    void flush() {
+        if (Thread.currentThread() == writer) return;
+        long target = tail.get();
+        while (written < target) {
+            synchronized (channelLock) {
+                if (Objects.isNull(channel)) return;
+            }
+            if (!writer.isAlive()) return;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * Used to take the next message from the queue. Called only by the writer thread.
+     * @return {@link String} with the message, or {@code null} if the queue is empty, or the next message isn't published yet.
+     */
+    private @Nullable String poll() {
+        long position = head;
+        int index = (int) (position & MASK);
+        if (sequences.get(index) != position + 1) return null;
+        String message = slots.get(index);
+        lastDroppable = droppableSlots[index];
+        slots.set(index, null);
+        sequences.set(index, position + CAPACITY);
+        head = position + 1;
+        return message;
+    }
+
+    /**
+     * Main loop of the writer thread. Collects messages into batches, and writes them when the batch is full or the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            String message = poll();
+            if (Objects.nonNull(message)) {
+                if (!channelOpen && batch.length() >= ((lastDroppable)? PENDING_BYTES: 4 * PENDING_BYTES)) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                batch.append(message);
+                batchMessages++;
+                if (batch.length() >= BATCH_BYTES) writeBatch(head);
+                continue;
+            }
+
+            if (channelOpen) {
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) batch.append(droppedNotice.apply(lost));
+            }
+            writeBatch(head);
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Used to write the current batch to the log file. Batch is kept when no log file is open.
+     * @param Position Position in the queue of the last message included in the batch.
+     */
+    private void writeBatch(long Position) {
+        synchronized (channelLock) {
+            if (Objects.isNull(channel)) return;
+            if (batch.length() > 0) {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+                try {
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                } catch (IOException e) {
+                    System.err.println("Failed to write to the log file! " + batchMessages + " messages were lost. " + e);
+                    dropped.addAndGet(batchMessages);
+                }
+                batch.setLength(0);
+                batchMessages = 0;
+            }
+            written = Position;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.loggers;
+
+import com.google.gson.Gson;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to write structured events about files processed by the sync to a JSON-lines file, for ingestion by log aggregators.
+ * Each line is a single JSON object, with fields that are not known for the event left out.
+ * Events are appended to {@link EventLog#FILE_NAME} in the logs directory, and every event carries the start time of the run to tell the runs apart.
+ * @apiNote Events are written only after {@link EventLog#open(Path)} is called, what happens when the event log is enabled in the settings.
+ */
+public final class EventLog {
+    public static final String FILE_NAME = "Cat-Downloader.events.jsonl";
+    private static final Gson gson = new Gson();
+    private static final String run = Instant.now().toString();
+    private static volatile AsyncAppender appender = null;
+    private EventLog() {}
+
+    /**
+     * Single event of the event log.
+     * @param time Time of the event, in ISO-8601 format.
+     * @param run Start time of the app run the event comes from, in ISO-8601 format.
+     * @param phase Phase of the sync the event comes from. ({@code verify}, {@code download}, {@code remove})
+     * @param index Index of the file in the instance. Nullable.
+     * @param path Path of the file relative to the working directory.
+     * @param bytes Size of the file in bytes. Nullable.
+     * @param durationMs Duration of the operation in milliseconds. Nullable.
+     * @param hashAlgorithm Hash algorithm used to verify the file. Nullable.
+     * @param outcome Outcome of the operation, for example {@code verified}, {@code missing}, {@code corrupted}, {@code downloaded}, {@code failed} or {@code error}.
+     */
+    public record Event(
+        @NotNull String time,
+        @NotNull String run,
+        @NotNull String phase,
+        @Nullable Integer index,
+        @NotNull String path,
+        @Nullable Long bytes,
+        @Nullable Double durationMs,
+        @Nullable String hashAlgorithm,
+        @NotNull String outcome
+    ) {}
+
+    /**
+     * Used to start writing events to the event log in the specified directory.
+     * @param LogDirectory {@link Path} to the directory for the event log.
+     * @throws IOException when IO Exception occurs.
+     */
+    public static synchronized void open(@NotNull Path LogDirectory) throws IOException {
+        Objects.requireNonNull(LogDirectory);
+        if (Objects.isNull(appender)) {
+            appender = new AsyncAppender((Dropped) -> "");
+        }
+        appender.open(LogDirectory.resolve(FILE_NAME));
+    }
+
+    /**
+     * Used to check if the event log is open. Can be used to skip gathering data for the events.
+     * @return {@code true} if events are written to the event log.
+     */
+    public static boolean isEnabled() {
+        return Objects.nonNull(appender);
+    }
+
+    /**
+     * Used to write an event to the event log. Does nothing if the event log is not open.
+     * @param Phase {@link String} with the phase of the sync.
+     * @param Index Index of the file in the instance, or {@code null} if not applicable.
+     * @param FilePath {@link String} with the path of the file relative to the working directory.
+     * @param Bytes Size of the file in bytes, or {@code null} if unknown.
+     * @param DurationNanos Duration of the operation in nanoseconds, or {@code null} if unknown.
+     * @param HashAlgorithm {@link String} with the hash algorithm used to verify the file, or {@code null} if not verified with a hash.
+     * @param Outcome {@link String} with the outcome of the operation.
+     */
+    public static void emit(@NotNull String Phase, @Nullable Integer Index, @NotNull String FilePath, @Nullable Long Bytes, @Nullable Long DurationNanos, @Nullable String HashAlgorithm, @NotNull String Outcome) {
+        AsyncAppender eventAppender = appender;
+        if (Objects.isNull(eventAppender)) return;
+        Event event = new Event(
+            Instant.now().toString(),
+            run,
+            Phase,
+            Index,
+            FilePath,
+            Bytes,
+            (Objects.isNull(DurationNanos))? null: DurationNanos / (double) TimeUnit.MILLISECONDS.toNanos(1),
+            HashAlgorithm,
+            Outcome
+        );
+        eventAppender.append(gson.toJson(event) + "\n", false);
+    }
+
+    /**
+     * Used to wait until all events emitted so far are written to the event log.
+     */
+    public static void flush() {
+        AsyncAppender eventAppender = appender;
+        if (Objects.nonNull(eventAppender)) eventAppender.flush();
+    }
+}
@@ -27,11 +27,18 @@ package com.kanzaji.catdownloaderlegacy.loggers;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * This interface is used to create logger services. Functions for different log levels are already implemented.
  */
 interface ILogger {
+    /**
+     * Level of the summaries, logged with INFO level, that are kept in the quiet mode.
+     * @see ILogger#summary(String)
+     */
+    int SUMMARY = -1;
+
     /**
      * Used to initialize Logger. Creates new log file and overrides old one if present.
      * @apiNote Has to be implemented manually.
@@ -52,6 +59,12 @@ interface ILogger {
      */
     void exit() throws IOException;
 
+    /**
+     * Used to wait until all messages logged so far are written to the log file.
+     * @apiNote Has to be implemented manually.
+     */
+    void flush();
+
     /**
      * Used to get boolean with the state of initialization of the Logger.
      * @return {@link Boolean} true if logger has been initialized successfully, false otherwise.
@@ -59,6 +72,14 @@ interface ILogger {
      */
     boolean isInitialized();
 
+    /**
+     * Used to check if messages with the specified level are currently logged.
+     * @param type {@link Integer} with the level of the message, between 0 and 3, or {@link ILogger#SUMMARY}.
+     * @return {@code true} if messages with the specified level are logged, {@code false} if they are filtered out.
+     * @apiNote Has to be implemented manually.
+     */
+    boolean isEnabled(int type);
+
     /**
      * Logs a message to a log file.
      * @param msg {@link String} message to log.
@@ -67,6 +88,22 @@ interface ILogger {
         this.logType(msg, 0);
     }
 
+    /**
+     * Logs a message to a log file. Message is created only if INFO level is enabled.
+     * @param msg {@link Supplier} of the message to log.
+     */
+    default void log(Supplier<String> msg) {
+        if (this.isEnabled(0)) this.logType(msg.get(), 0);
+    }
+
+    /**
+     * Logs a summary of a phase to a log file, with INFO level. Summaries are kept in the quiet mode, unlike other INFO messages.
+     * @param msg {@link String} message to log.
+     */
+    default void summary(String msg) {
+        this.logType(msg, SUMMARY);
+    }
+
     /**
      * Logs a message with level WARN to a log file.
      * @param msg {@link String} message to log as WARN.
@@ -75,6 +112,14 @@ interface ILogger {
         this.logType(msg, 1);
     }
 
+    /**
+     * Logs a message with level WARN to a log file. Message is created only if WARN level is enabled.
+     * @param msg {@link Supplier} of the message to log as WARN.
+     */
+    default void warn(Supplier<String> msg) {
+        if (this.isEnabled(1)) this.logType(msg.get(), 1);
+    }
+
     /**
      * Logs a message with level ERROR to a log file.
      * @param msg {@link String} message to log as ERROR.
@@ -91,10 +136,11 @@ interface ILogger {
 
     /**
      * Logs a message with level INFO to a log file, additionally printing the message to the console.
+     * Messages printed to the console are treated as summaries, and are kept in the quiet mode.
      * @param msg {@link String} message to log with INFO level.
      */
     default void print(String msg) {
-        this.logType(msg, 0);
+        this.logType(msg, SUMMARY);
         System.out.println(msg);
     }
 
@@ -111,7 +157,7 @@ interface ILogger {
      * @param type {@link Integer} between 0 and 3 specifying selected level. Out of range defaults to 0.
      */
     default void print(String msg, int type) {
-        this.logType(msg, type);
+        this.logType(msg, (type == 0)? SUMMARY: type);
         System.out.println(msg);
     }
 
@@ -32,26 +32,33 @@ import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
 
 /**
  * This class is the main instance of the Logger Service. It handles creation, stockpiling and logging to log files.
+ * Messages are written to the log file by the {@link AsyncAppender} in the background, use {@link Logger#flush()} to wait for them to be written.
  * @apiNote This class is a Singleton, use {@link Logger#getInstance()} for reference of this class.
  * @see LoggerCustom
  */
 class Logger implements ILogger {
     private static final ArgumentDecoder ARD = ArgumentDecoder.getInstance();
     private static final class InstanceHolder {private static final Logger instance = new Logger();}
+    private static final DateTimeFormatter timestampFormat = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss.SSS");
     private Logger() {}
-    private boolean crashed = false;
+    private final AsyncAppender appender = new AsyncAppender((Dropped) -> format("WARN", "[Logger] " + Dropped + " messages were dropped, because the log queue was full or the log file couldn't be written!"));
     private boolean disabled = false;
+    private volatile int threshold = 0;
     private boolean initialized = false;
+    private volatile Thread archiver;
     private Path LogFile = Path.of("Cat-Downloader.log");
 
     /**
@@ -80,12 +87,15 @@ class Logger implements ILogger {
         // Gives an option to re-enable the Logger if I want to add this functionality in the future.
         if (disabled) {disabled = false;}
         try {
+            appender.close();
             if (Files.exists(this.LogFile)) {
                 Files.move(this.LogFile, Path.of("Cat-Downloader Archived.log"), StandardCopyOption.REPLACE_EXISTING);
                 Files.createFile(this.LogFile);
+                appender.open(this.LogFile);
                 this.log("Old Log file found! \"" + this.LogFile.toAbsolutePath() + "\" file has been archived for now.");
             } else {
                 Files.createFile(this.LogFile);
+                appender.open(this.LogFile);
                 this.log("\"" + this.LogFile.toAbsolutePath() + "\" file created.");
             }
         } catch (Exception e) {
@@ -98,15 +108,19 @@ class Logger implements ILogger {
     /**
      * Used to finish initialization of the Logger.
      * Handles the Stockpiling function of the logs, and moving the log file to a new location.
+     * Old logs are renamed right away, compression and limiting of the stockpile are done in the background by {@link Logger#startArchiving(List, Path)}.
      * @throws IllegalStateException when reading attributes of the compressed log files is not possible.
      * @throws IOException when IO Exception occurs.
      */
     public void postInit() throws IllegalStateException, IOException {
         this.log("Post-Initialization of Logger started!");
+        this.threshold = Math.max(0, Arrays.asList(ArgumentDecoder.getAvailableLogLevels()).indexOf(ARD.getLogLevel()));
+        this.log("Log level: " + ARD.getLogLevel());
         Path logPath = Path.of(ARD.getLogPath());
         Path archivedLog = Path.of("Cat-Downloader Archived.log");
         Path logInLogPath = Path.of(logPath.toString(), "Cat-Downloader.log");
         Path archivedLogInLogPath = Path.of(logPath.toString(), "Cat-Downloader Archived.log");
+        List<Path> compression = new LinkedList<>();
 
         // Move Log files to the log Path if specified.
         if (!FileUtils.getParentFolder(Path.of(logPath.toString(), ".")).toString().equals(FileUtils.getParentFolder(this.LogFile).toString())) {
@@ -121,11 +135,7 @@ class Logger implements ILogger {
             if (Files.exists(archivedLogInLogPath)) {
                 this.warn("Found old pre-full-archive log file in specified Path! This might signal a crash in the last post-init phase of the logger!");
                 this.warn("The log file is going to be saved as unknown.log" + (ARD.shouldCompressLogs()? ".gz": "") + " for future inspection.");
-                 if (ARD.shouldCompressLogs()) {
-                     FileUtils.compressToGz(archivedLogInLogPath,"unknown.log", true);
-                 } else {
-                     FileUtils.rename(archivedLogInLogPath, "unknown.log");
-                 }
+                archive(archivedLogInLogPath, "unknown.log", compression);
             }
 
             // Cat-Downloader Archived.log handling.
@@ -133,14 +143,7 @@ class Logger implements ILogger {
                 if (ARD.shouldStockpileLogs()) {
                     this.log("Found archived log in working directory! Moving archived log to new location...");
                     Files.move(archivedLog, archivedLogInLogPath);
-                    archivedLog = archivedLogInLogPath;
-                    if (ARD.shouldCompressLogs()) {
-                        this.log("Moved archived log to new location! Compressing...");
-                        FileUtils.compressToGz(archivedLog, DateUtils.getCurrentFullDate() + ".log", true);
-                    } else {
-                        this.log("Moved archived log to new location! Changing the filename...");
-                        FileUtils.rename(archivedLog, DateUtils.getCurrentFullDate() + ".log");
-                    }
+                    archive(archivedLogInLogPath, DateUtils.getCurrentFullDate() + ".log", compression);
                     this.log("Old log file has been archived!");
                 } else {
                     this.log("Found archived log in working directory! However, stockpiling of the logs has been disabled. Deleting old log file...");
@@ -153,13 +156,7 @@ class Logger implements ILogger {
             if (Files.exists(logInLogPath)) {
                 if (ARD.shouldStockpileLogs()) {
                     this.log("Old log file found in the log Directory! Archiving the log file...");
-                    String archivedName = FileUtils.rename(logInLogPath, "Cat-Downloader Archived.log");
-                    Path archivedFile = Path.of(logPath.toString(), archivedName);
-                    if (ARD.shouldCompressLogs()) {
-                        FileUtils.compressToGz(archivedFile, DateUtils.getCurrentFullDate() + ".log", true);
-                    } else {
-                        FileUtils.rename(archivedFile, DateUtils.getCurrentFullDate() + ".log");
-                    }
+                    archive(logInLogPath, DateUtils.getCurrentFullDate() + ".log", compression);
                     this.log("Old log file has been archived!");
                 } else {
                     this.log("Found old log file in the Log directory! However, stockpiling of the logs has been disabled. Deleting old log file...");
@@ -174,11 +171,18 @@ class Logger implements ILogger {
                 if (Files.exists(logInLogPath)) {
                     this.error("Found non-archived log in the final destination, what should not happen at this point of the process!");
                     this.error("Archiving the log under unknown_latest.log" + (ARD.shouldCompressLogs()? ".gz": "") + "  name for future inspection.");
-                    String unknownName = FileUtils.rename(logInLogPath, "unknown_latest.log");
-                    FileUtils.compressToGz(Path.of(logPath.toString(), unknownName), true);
+                    archive(logInLogPath, "unknown_latest.log", compression);
+                }
+                appender.close();
+                try {
+                    Files.move(this.LogFile, logInLogPath);
+                } catch (IOException e) {
+                    // Keep logging to the original file, otherwise nothing would reach the disk anymore.
+                    appender.open(this.LogFile);
+                    throw e;
                 }
-                Files.move(this.LogFile, logInLogPath);
                 this.LogFile = logInLogPath;
+                appender.open(this.LogFile);
                 this.log("Moved currently active log to the new Location: \"" + this.LogFile.toAbsolutePath() + "\".");
             } else {
                 this.error("The log file doesn't exists before even archiving??? Something is horribly wrong...");
@@ -188,11 +192,7 @@ class Logger implements ILogger {
             if (Files.exists(archivedLog)) {
                 if(ARD.shouldStockpileLogs()) {
                     this.log("Old log file found! Archiving the log file...");
-                    if (ARD.shouldCompressLogs()) {
-                        FileUtils.compressToGz(archivedLog, DateUtils.getCurrentFullDate() + ".log", true);
-                    } else {
-                        FileUtils.rename(archivedLog, DateUtils.getCurrentFullDate() + ".log");
-                    }
+                    archive(archivedLog, DateUtils.getCurrentFullDate() + ".log", compression);
                     this.log("Log has been archived!");
                 } else {
                     this.log("Old log file found! However, stockpiling of the logs has been disabled. Deleting old log file...");
@@ -202,69 +202,149 @@ class Logger implements ILogger {
             }
         }
 
-        // Limit handling
-        if (ARD.shouldStockpileLogs() && ARD.getLogStockSize() > 0) {
-            this.log("Stockpiling of the logs is enabled! Stockpile limit is " +  ARD.getLogStockSize());
-            List<Path> archivedLogs = new LinkedList<>();
-            try(Stream<Path> directoryList = Files.list(logPath)) {
-                directoryList.forEach((File) -> {
-                    String fileName = File.getFileName().toString();
-                    if(fileName.contains(".log") && !fileName.equals("Cat-Downloader.log")) {
-                        archivedLogs.add(File);
-                    }
-                });
+        if (ARD.shouldStockpileLogs() && ARD.getLogStockSize() < 1) {
+            this.log("Stockpiling of the logs is enabled! Stockpile limit is infinite!");
+        }
+
+        startArchiving(compression, logPath);
+        this.log("Post-Initialization of Logger finished!");
+    }
+
+    /**
+     * Used to rename an old log file to its archived name, and queue it for compression if compression of the logs is enabled.
+     * @param File {@link Path} to the old log file.
+     * @param Name {@link String} with the archived name of the log file.
+     * @param Compression {@link List} with files queued for compression.
+     * @throws IOException when IO Exception occurs.
+     */
+    private void archive(Path File, String Name, List<Path> Compression) throws IOException {
+        String archivedName = FileUtils.rename(File, Name);
+        if (ARD.shouldCompressLogs()) Compression.add(File.resolveSibling(archivedName));
+    }
+
+    /**
+     * Used to start the background thread compressing archived logs and limiting the size of the stockpile.
+     * The thread is not a daemon, so the archiving is finished even if the sync is done earlier. {@link Logger#flush()} waits for it as well.
+     * @param Compression {@link List} with files to compress.
+     * @param LogDirectory {@link Path} to the directory with the stockpile of logs.
+     */
+    private void startArchiving(List<Path> Compression, Path LogDirectory) {
+        boolean limitStockpile = ARD.shouldStockpileLogs() && ARD.getLogStockSize() > 0;
+        if (Compression.isEmpty() && !limitStockpile) return;
+
+        Thread archiver = new Thread(() -> {
+            for (Path File: Compression) {
+                try {
+                    FileUtils.compressToGz(File, true);
+                } catch (Exception e) {
+                    this.logStackTrace("Failed to compress the log file " + File.toAbsolutePath(), e);
+                }
             }
+            if (limitStockpile) limitStockpile(LogDirectory);
+            this.log("Archiving of the old logs finished!");
+        }, "CDL-Log-Archiver");
+        archiver.setUncaughtExceptionHandler((Thread, e) -> this.logStackTrace("Exception thrown while archiving the old logs!", e));
+        this.archiver = archiver;
+        archiver.start();
+        this.log("Archiving of the old logs has been started in the background.");
+    }
 
-            if (archivedLogs.size() > ARD.getLogStockSize()) {
-                this.log("Limit of stockpile has been reached (Currently found " + archivedLogs.size() + " log files)! Deleting the oldest files...");
-
-                archivedLogs.sort((e1, e2) -> {
-                    try { return Files
-                            .readAttributes(e1, BasicFileAttributes.class)
-                            .creationTime()
-                            .compareTo(
-                                    Files
-                                            .readAttributes(e2, BasicFileAttributes.class)
-                                            .creationTime()
-                            );
-                    } catch (Exception e) {
-                        this.logStackTrace("Unable to read attributes of file: " + e1.toAbsolutePath(), e);
-                        return 0;
-                    }
-                });
-
-                while (archivedLogs.size() > ARD.getLogStockSize()) {
-                    try {
-                        if (Files.deleteIfExists(archivedLogs.get(0))) {
-                            this.log(archivedLogs.get(0).toAbsolutePath() + " has been deleted!");
-                        } else {
-                            this.error(archivedLogs.get(0).toAbsolutePath() + " was meant to be deleted, but it's missing! Something is not right...");
-                        }
-                    } catch (Exception e) {
-                        this.logStackTrace("Failed to delete the log file " + archivedLogs.get(0).toAbsolutePath(), e);
-                    }
-                    archivedLogs.remove(archivedLogs.get(0));
+    /**
+     * Used to delete the oldest logs from the specified directory, until the size of the stockpile is within the limit.
+     * Attributes of every log file are read only once, before sorting.
+     * @param LogDirectory {@link Path} to the directory with the stockpile of logs.
+     */
+    private void limitStockpile(Path LogDirectory) {
+        this.log("Stockpiling of the logs is enabled! Stockpile limit is " +  ARD.getLogStockSize());
+        List<ArchivedLog> archivedLogs = new ArrayList<>();
+        try (DirectoryStream<Path> directoryList = Files.newDirectoryStream(LogDirectory)) {
+            for (Path File: directoryList) {
+                String fileName = File.getFileName().toString();
+                if (!fileName.contains(".log") || fileName.equals("Cat-Downloader.log")) continue;
+                try {
+                    archivedLogs.add(new ArchivedLog(File, Files.readAttributes(File, BasicFileAttributes.class).creationTime()));
+                } catch (Exception e) {
+                    this.logStackTrace("Unable to read attributes of file: " + File.toAbsolutePath(), e);
                 }
             }
-        } else if (ARD.shouldStockpileLogs() && ARD.getLogStockSize() < 1) {
-            this.log("Stockpiling of the logs is enabled! Stockpile limit is infinite!");
+        } catch (IOException e) {
+            this.logStackTrace("Unable to list the log directory " + LogDirectory.toAbsolutePath(), e);
+            return;
         }
 
-        this.log("Post-Initialization of Logger finished!");
+        if (archivedLogs.size() <= ARD.getLogStockSize()) return;
+        this.log("Limit of stockpile has been reached (Currently found " + archivedLogs.size() + " log files)! Deleting the oldest files...");
+        archivedLogs.sort(Comparator.comparing(ArchivedLog::creationTime));
+
+        for (int i = 0; i < archivedLogs.size() - ARD.getLogStockSize(); i++) {
+            Path File = archivedLogs.get(i).path();
+            try {
+                if (Files.deleteIfExists(File)) {
+                    this.log(File.toAbsolutePath() + " has been deleted!");
+                } else {
+                    this.error(File.toAbsolutePath() + " was meant to be deleted, but it's missing! Something is not right...");
+                }
+            } catch (Exception e) {
+                this.logStackTrace("Failed to delete the log file " + File.toAbsolutePath(), e);
+            }
+        }
     }
 
+    /**
+     * Holds an archived log file together with its creation time, read once while listing the stockpile.
+     * @param path {@link Path} to the archived log.
+     * @param creationTime {@link FileTime} with the creation time of the archived log.
+     */
+    private record ArchivedLog(Path path, FileTime creationTime) {}
+
     /**
      * Used to disable Logger and remove the log file.
      * @throws IOException when log deletion failed.
      */
     public void exit() throws IOException {
         System.out.println("LOGGER WAS DISABLED. If any errors occur they will not be logged and can be not shown in the console! Use at your own risk.");
+        appender.close();
         this.disabled = true;
         Files.readAllLines(this.LogFile).forEach(System.out::println);
         Files.deleteIfExists(this.LogFile);
         this.LogFile = null;
     }
 
+    /**
+     * Used to check if messages with the specified level are currently logged.
+     * Levels are ordered INFO, SUMMARY, WARN, ERROR, CRITICAL, and the threshold is set by the log level from the {@link ArgumentDecoder}.
+     * @param type {@link Integer} with the level of the message, between 0 and 3, or {@link ILogger#SUMMARY}.
+     * @return {@code true} if messages with the specified level are logged, {@code false} if they are filtered out.
+     */
+    @Override
+    public boolean isEnabled(int type) {
+        int rank = switch (type) {
+            case SUMMARY -> 1;
+            case 1 -> 2;
+            case 2 -> 3;
+            case 3 -> 4;
+            default -> 0;
+        };
+        return rank >= this.threshold;
+    }
+
+    /**
+     * Used to wait until all messages logged so far are written to the log file.
+     * Waits for the background archiving of the old logs to finish first.
+     */
+    @Override
+    public void flush() {
+        Thread archiver = this.archiver;
+        if (Objects.nonNull(archiver) && archiver != Thread.currentThread()) {
+            try {
+                archiver.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appender.flush();
+    }
+
     /**
      * Used to get boolean with the state of initialization of the Logger.
      *
@@ -288,8 +368,10 @@ class Logger implements ILogger {
      * @param msg String message to log to a log file.
      * @param type Int between 0 and 2 specifying selected level. Defaults to 0. (Nullable)
      * @param throwable Exception to log. (Nullable)
+     * @apiNote Messages are only queued for writing. INFO messages may be dropped when the queue is full, messages of higher levels are never dropped.
      */
     public void logCustom(String msg, int type, @Nullable Throwable throwable) {
+        if (!this.isEnabled(type)) return;
         String Type = switch (type) {
             case 1 -> "WARN";
             case 2 -> "ERROR";
@@ -298,44 +380,41 @@ class Logger implements ILogger {
         };
 
         if (disabled) {
-            System.out.println("[" + new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS").format(new Date()) + "] [" + Type + "] " + msg);
+            System.out.print(format(Type, msg));
             if (throwable != null) {
                 throwable.printStackTrace();
             }
             return;
         }
 
-        try {
-            Files.writeString(this.LogFile, "[" + new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS").format(new Date()) + "] [" + Type + "] " + msg + "\n", StandardOpenOption.APPEND);
-            if (throwable != null) {
-                StackTraceElement[] stackTraceList = throwable.getStackTrace();
-                StringBuilder stackTrace = new StringBuilder();
-                for (StackTraceElement stackTraceElement : stackTraceList) {
-                    stackTrace.append("    at ").append(stackTraceElement).append("\n");
-                }
-
-                Files.writeString(this.LogFile, "[" + new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS").format(new Date()) + "] [" + Type + "] " + throwable + "\n" + stackTrace, StandardOpenOption.APPEND);
-
-                if (Objects.nonNull(throwable.getCause())) {
-                    this.logStackTrace("Caused By:", throwable.getCause());
-                }
+        String message = format(Type, msg);
+        if (throwable != null) {
+            StringBuilder stackTrace = new StringBuilder(message).append(format(Type, throwable.toString()));
+            for (StackTraceElement stackTraceElement : throwable.getStackTrace()) {
+                stackTrace.append("    at ").append(stackTraceElement).append("\n");
+            }
+            message = stackTrace.toString();
+        }
+        appender.append(message, type == 0);
 
-                for (Throwable throwable1 : throwable.getSuppressed()) {
-                    this.logStackTrace("Suppressed Exception!", throwable1);
-                }
+        if (throwable != null) {
+            if (Objects.nonNull(throwable.getCause())) {
+                this.logStackTrace("Caused By:", throwable.getCause());
             }
-        } catch (NoSuchFileException e) {
-            if (this.crashed) {
-                e.printStackTrace();
-                System.exit(1);
+
+            for (Throwable throwable1 : throwable.getSuppressed()) {
+                this.logStackTrace("Suppressed Exception!", throwable1);
             }
-            this.crashed = true;
-            this.init();
-            this.error("Log file seems to had been deleted! Created another copy, but the rest of the log file has been lost.");
-            this.error("Catching last message...");
-            this.log(msg);
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
+
+    /**
+     * Used to format a line of the log file.
+     * @param Type {@link String} with the level of the message.
+     * @param msg {@link String} message to format.
+     * @return {@link String} with the timestamp, level and the message, ending with a line separator.
+     */
+    private static String format(String Type, String msg) {
+        return "[" + LocalDateTime.now().format(timestampFormat) + "] [" + Type + "] " + msg + "\n";
+    }
 }
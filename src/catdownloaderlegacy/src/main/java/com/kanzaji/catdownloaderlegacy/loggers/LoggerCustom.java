@@ -80,6 +80,24 @@ public class LoggerCustom implements ILogger {
         logger.exit();
     }
 
+    /**
+     * Used to check if messages with the specified level are currently logged.
+     * @param type {@link Integer} with the level of the message, between 0 and 3, or {@link ILogger#SUMMARY}.
+     * @return {@code true} if messages with the specified level are logged, {@code false} if they are filtered out.
+     */
+    @Override
+    public boolean isEnabled(int type) {
+        return logger.isEnabled(type);
+    }
+
+    /**
+     * Used to wait until all messages logged so far are written to the log file.
+     */
+    @Override
+    public void flush() {
+        logger.flush();
+    }
+
     /**
      * Used to get boolean with the state of initialization of the Logger.
      *
@@ -106,6 +124,7 @@ public class LoggerCustom implements ILogger {
      */
     @Override
     public void logCustom(String msg, int type, @Nullable Throwable throwable) {
+        if (!logger.isEnabled(type)) return;
         logger.logCustom("[" + name + "] " + msg, type, throwable);
     }
 }
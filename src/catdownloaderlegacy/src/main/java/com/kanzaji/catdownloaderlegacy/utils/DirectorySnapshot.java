@@ -0,0 +1,178 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * This class holds a snapshot of the content of specified directories, taken with one listing per directory.
+ * Used to answer existence and size queries without probing the file system for every single file.
+ * Queries for files in directories that weren't scanned fall back to the file system.
+ * @see DirectorySnapshot#take(Collection)
+ */
+public class DirectorySnapshot {
+    private static final LoggerCustom logger = new LoggerCustom("Directory Snapshot");
+    private final ConcurrentHashMap<Path, ConcurrentHashMap<Path, BasicFileAttributes>> directories = new ConcurrentHashMap<>();
+
+    private DirectorySnapshot() {}
+
+    /**
+     * Used to take a snapshot of the specified directories. Only direct children of the directories are recorded.
+     * Directories that don't exist are recorded as empty.
+     * @param Directories {@link Collection} of {@link Path}s to directories to scan.
+     * @return {@link DirectorySnapshot} with the content of the directories.
+     * @throws IOException when listing of any of the directories fails.
+     */
+    public static @NotNull DirectorySnapshot take(@NotNull Collection<Path> Directories) throws IOException {
+        Objects.requireNonNull(Directories);
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        long StartingTime = System.nanoTime();
+        int files = 0;
+
+        for (Path Directory : Directories) {
+            Path directory = normalize(Directory);
+            if (snapshot.directories.containsKey(directory)) continue;
+
+            ConcurrentHashMap<Path, BasicFileAttributes> entries = new ConcurrentHashMap<>();
+            snapshot.directories.put(directory, entries);
+            Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<>() {
+                @Override
+                public @NotNull FileVisitResult visitFile(@NotNull Path File, @NotNull BasicFileAttributes Attributes) {
+                    // With depth of 1, children are passed here, including directories.
+                    if (!File.equals(directory)) entries.put(File, Attributes);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public @NotNull FileVisitResult visitFileFailed(@NotNull Path File, @NotNull IOException e) throws IOException {
+                    if (File.equals(directory)) {
+                        if (e instanceof NoSuchFileException) return FileVisitResult.TERMINATE;
+                        throw e;
+                    }
+                    // Broken links and files removed during the walk are treated as not existing.
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            files += entries.size();
+        }
+
+        logger.summary("Snapshot of " + RandomUtils.intGrammar(snapshot.directories.size(), " directory", " directories", true) + " with " + RandomUtils.intGrammar(files, " entry", " entries", true) + " taken in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - StartingTime) + "ms.");
+        return snapshot;
+    }
+
+    /**
+     * Used to get attributes of the file from the snapshot.
+     * @param File {@link Path} to a file.
+     * @return {@link BasicFileAttributes} of the file, or null if the file doesn't exist.
+     */
+    public @Nullable BasicFileAttributes getAttributes(@NotNull Path File) {
+        Path file = normalize(File);
+        Map<Path, BasicFileAttributes> entries = directories.get(FileUtils.getParentFolder(file));
+        if (Objects.nonNull(entries)) return entries.get(file);
+
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Used to check if the file exists in the snapshot.
+     * @param File {@link Path} to a file.
+     * @return {@code true} if the file exists, otherwise {@code false}.
+     */
+    public boolean exists(@NotNull Path File) {
+        return Objects.nonNull(getAttributes(File));
+    }
+
+    /**
+     * Used to get the size of the file from the snapshot.
+     * @param File {@link Path} to a file.
+     * @return {@link Long} with the size of the file, or -1 if the file doesn't exist.
+     */
+    public long size(@NotNull Path File) {
+        BasicFileAttributes attributes = getAttributes(File);
+        return (Objects.isNull(attributes))? -1: attributes.size();
+    }
+
+    /**
+     * Used to list the content of a directory.
+     * @param Directory {@link Path} to a directory.
+     * @return {@link List} with {@link Path}s to the entries of the directory, sorted by their names.
+     * @throws IOException when the directory wasn't scanned, and listing it fails.
+     */
+    public @NotNull List<Path> list(@NotNull Path Directory) throws IOException {
+        Path directory = normalize(Directory);
+        Map<Path, BasicFileAttributes> entries = directories.get(directory);
+        if (Objects.isNull(entries)) {
+            try (Stream<Path> listing = Files.list(directory)) {
+                return listing.sorted().toList();
+            }
+        }
+        return entries.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * Used to update the snapshot after the file was written or deleted. Reads attributes of that single file.
+     * @param File {@link Path} to a file.
+     */
+    public void update(@NotNull Path File) {
+        Path file = normalize(File);
+        Map<Path, BasicFileAttributes> entries = directories.get(FileUtils.getParentFolder(file));
+        if (Objects.isNull(entries)) return;
+
+        try {
+            entries.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        } catch (IOException e) {
+            entries.remove(file);
+        }
+    }
+
+    /**
+     * Used to remove the file from the snapshot after it was deleted.
+     * @param File {@link Path} to a file.
+     */
+    public void remove(@NotNull Path File) {
+        Path file = normalize(File);
+        Map<Path, BasicFileAttributes> entries = directories.get(FileUtils.getParentFolder(file));
+        if (Objects.nonNull(entries)) entries.remove(file);
+    }
+
+    private static @NotNull Path normalize(@NotNull Path File) {
+        return File.toAbsolutePath().normalize();
+    }
+}
@@ -24,6 +24,7 @@
 
 package com.kanzaji.catdownloaderlegacy.utils;
 
+import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 
 import org.jetbrains.annotations.NotNull;
@@ -32,11 +33,15 @@ import org.jetbrains.annotations.Nullable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.rmi.UnexpectedException;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -50,6 +55,8 @@ import java.util.zip.ZipFile;
  */
 public class FileUtils {
     private static final LoggerCustom logger = new LoggerCustom("File Utilities");
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final int PROGRESS_THRESHOLD = 1000;
 
     /**
      * Used to get an {@link InputStream} for an internal resource. Starts from the `root` directory of the jar.
@@ -163,6 +170,7 @@ public class FileUtils {
 
     /**
      * This method is used to automatically delete a file or a folder.
+     * Content of folders is deleted in parallel for big directories. Symbolic links are deleted, not followed.
      * @param FileOrFolder Path to a file or a folder designated to deletion.
      * @throws NullPointerException when the argument is null.
      * @throws IOException when IO Exception occurs.
@@ -170,37 +178,144 @@ public class FileUtils {
     public static void delete(@NotNull Path FileOrFolder) throws IOException, NullPointerException {
         Objects.requireNonNull(FileOrFolder);
 
-        if (Files.notExists(FileOrFolder)) {
+        if (Files.notExists(FileOrFolder, LinkOption.NOFOLLOW_LINKS)) {
             logger.warn("Tried to delete already not existent file!");
             logger.warn("Path: \"" + FileOrFolder.toAbsolutePath() + "\".");
             return;
         }
 
-        if (!Files.isDirectory(FileOrFolder)) {
+        if (!Files.isDirectory(FileOrFolder, LinkOption.NOFOLLOW_LINKS)) {
             Files.deleteIfExists(FileOrFolder);
             logger.log("File \"" + FileOrFolder + "\" has been deleted.");
             return;
         }
 
-        HashSet<Exception> exceptionsHashSet = new HashSet<>();
-        try (Stream<Path> directoryListing = Files.list(FileOrFolder)) {
-            directoryListing.forEach((File) -> {
+        List<Path> files = new ArrayList<>();
+        List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(FileOrFolder, new SimpleFileVisitor<>() {
+            @Override
+            public @NotNull FileVisitResult visitFile(@NotNull Path File, @NotNull BasicFileAttributes Attributes) {
+                files.add(File);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public @NotNull FileVisitResult postVisitDirectory(@NotNull Path Directory, @Nullable IOException Exception) throws IOException {
+                if (Objects.nonNull(Exception)) throw Exception;
+                directories.add(Directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        List<Exception> exceptions = runTreeOperation("Deleting", FileOrFolder, files, Files::deleteIfExists);
+
+        // Directories are listed after their content, so the deepest ones are deleted first.
+        if (exceptions.isEmpty()) {
+            for (Path Directory : directories) {
                 try {
-                    delete(File);
+                    Files.deleteIfExists(Directory);
                 } catch (IOException e) {
-                    exceptionsHashSet.add(new IOException(File.toAbsolutePath().toString(), e));
+                    exceptions.add(new IOException(Directory.toAbsolutePath().toString(), e));
                 }
-            });
+            }
         }
 
-        Files.deleteIfExists(FileOrFolder);
-
-        if (exceptionsHashSet.size() > 0) {
-            IOException ioe = new IOException("IO Exception occurred while deleting the folder" + FileOrFolder.toAbsolutePath());
-            exceptionsHashSet.forEach(ioe::addSuppressed);
+        if (!exceptions.isEmpty()) {
+            IOException ioe = new IOException("IO Exception occurred while deleting the folder " + FileOrFolder.toAbsolutePath());
+            exceptions.forEach(ioe::addSuppressed);
             throw ioe;
         } else {
-            logger.log("Directory \"" + FileOrFolder + "\" has been deleted.");
+            logger.log("Directory \"" + FileOrFolder + "\" has been deleted (" + RandomUtils.intGrammar(files.size(), " file", " files", true) + ").");
+        }
+    }
+
+    /**
+     * Used to run an operation on all files of a directory tree. Big trees are split between threads of a {@link ForkJoinPool}, sized by the amount of I/O threads.
+     * Progress is logged every 10% for trees with at least {@link FileUtils#PROGRESS_THRESHOLD} files.
+     * @param Action {@link String} with the name of the operation, used in the progress logs.
+     * @param Root {@link Path} to the root of the tree, used in the progress logs.
+     * @param FileList {@link List} of the files to run the operation on.
+     * @param Operation {@link PathOperation} to run on each file.
+     * @return Mutable {@link List} of the exceptions thrown by the operation, wrapped with the path of the file.
+     */
+    private static @NotNull List<Exception> runTreeOperation(@NotNull String Action, @NotNull Path Root, @NotNull List<Path> FileList, @NotNull PathOperation Operation) {
+        Queue<Exception> exceptions = new ConcurrentLinkedQueue<>();
+        AtomicInteger done = new AtomicInteger();
+        int total = FileList.size();
+        int step = Math.max(total / 10, 1);
+
+        PathOperation tracked = (File) -> {
+            try {
+                Operation.run(File);
+            } catch (IOException | RuntimeException e) {
+                exceptions.add(new IOException(File.toAbsolutePath().toString(), e));
+            }
+            int count = done.incrementAndGet();
+            if (total >= PROGRESS_THRESHOLD && count % step == 0) {
+                logger.log(Action + " \"" + Root + "\": " + count + "/" + total + " files (" + (count * 100L / total) + "%)");
+            }
+        };
+
+        if (total < PARALLEL_THRESHOLD) {
+            for (Path File : FileList) {
+                try {
+                    tracked.run(File);
+                } catch (IOException ignored) {
+                    // Exceptions are collected by the tracked operation.
+                }
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(ArgumentDecoder.getInstance().getIOThreads());
+            try {
+                pool.invoke(new TreeAction(FileList, 0, total, tracked));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        return new ArrayList<>(exceptions);
+    }
+
+    /**
+     * Operation on a single file of a directory tree.
+     */
+    @FunctionalInterface
+    private interface PathOperation {
+        void run(@NotNull Path File) throws IOException;
+    }
+
+    /**
+     * {@link RecursiveAction} splitting a range of files in half until it's small enough to process in a single task.
+     */
+    private static class TreeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int BATCH_SIZE = 64;
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+        private final PathOperation operation;
+
+        private TreeAction(@NotNull List<Path> FileList, int From, int To, @NotNull PathOperation Operation) {
+            this.files = FileList;
+            this.from = From;
+            this.to = To;
+            this.operation = Operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        operation.run(files.get(i));
+                    } catch (IOException ignored) {
+                        // Exceptions are collected by the tracked operation.
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TreeAction(files, from, middle, operation), new TreeAction(files, middle, to, operation));
         }
     }
 
@@ -349,17 +464,20 @@ public class FileUtils {
             }
         }
 
-        Files.copy(File, gzFile);
-
-        try (GZIPOutputStream gzOutput = new GZIPOutputStream(Files.newOutputStream(gzFile))) {
+        // The file is streamed straight into the archive. A partially written archive is removed, so the original is never lost.
+        try (GZIPOutputStream gzOutput = new GZIPOutputStream(Files.newOutputStream(gzFile), 65536)) {
             Files.copy(File, gzOutput);
-            if (DeleteOriginal) {
-                logger.log("Compression done! Deleting original file...");
-                delete(File);
-                logger.log("File \"" + File.toAbsolutePath().getFileName() + "\" has been deleted.");
-            } else {
-                logger.log("Compression done!");
-            }
+        } catch (IOException e) {
+            Files.deleteIfExists(gzFile);
+            throw e;
+        }
+
+        if (DeleteOriginal) {
+            logger.log("Compression done! Deleting original file...");
+            delete(File);
+            logger.log("File \"" + File.toAbsolutePath().getFileName() + "\" has been deleted.");
+        } else {
+            logger.log("Compression done!");
         }
     }
 
@@ -414,6 +532,20 @@ public class FileUtils {
      */
     public static void compressToGz(@NotNull Path File, @Nullable String FileName, boolean DeleteOriginal) throws IllegalArgumentException, FileNotFoundException, IOException { compressToGz(File, FileName, DeleteOriginal, false);}
 
+    /**
+     * Used to get an inode number of the file, which approximates the physical location of the file on the disk.
+     * @param File Not Null {@link Path} to a file.
+     * @return {@link Long} with the inode number, or -1 if the file doesn't exist or the file system doesn't have inodes.
+     */
+    public static long getInode(@NotNull Path File) {
+        if (!File.getFileSystem().supportedFileAttributeViews().contains("unix")) return -1;
+        try {
+            return ((Number) Files.getAttribute(File, "unix:ino")).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
     /**
      * Used to get parent folder for specified {@link Path}.
      * @param File Not Null {@link Path} to get a parent of.
@@ -473,4 +605,45 @@ public class FileUtils {
      * @apiNote Be aware, this method is meant to be used with files, and will get a parent folder of specified Path.
      */
     public static void createRequiredPathToAFile(@NotNull Path path) throws UnexpectedException {createRequiredPath(path.getParent());}
+
+    /**
+     * Used to replace the content of a file atomically, when supported by the file system.
+     * Content is written to a unique temporary file in the same directory, which is then moved over the file, so readers never see a partially written file.
+     * The temporary file is removed when writing fails.
+     * @param File {@link Path} to the file to replace. Missing parent directories are created.
+     * @param Writer {@link IOConsumer} writing the new content to the passed {@link OutputStream}.
+     * @throws IOException when IO Exception occurs.
+     */
+    public static void writeAtomically(@NotNull Path File, @NotNull IOConsumer<OutputStream> Writer) throws IOException {
+        Objects.requireNonNull(Writer);
+        Path target = File.toAbsolutePath();
+        createRequiredPathToAFile(target);
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                Writer.accept(out);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e2) {
+                e.addSuppressed(e2);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Operation accepting a value, which can throw an {@link IOException}.
+     * @param <T> Type of the accepted value.
+     */
+    @FunctionalInterface
+    public interface IOConsumer<T> {
+        void accept(T value) throws IOException;
+    }
 }
@@ -25,19 +25,33 @@
 package com.kanzaji.catdownloaderlegacy.utils;
 
 import com.kanzaji.catdownloaderlegacy.ArgumentDecoder;
+import com.kanzaji.catdownloaderlegacy.exceptions.DirectIOException;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 import org.jetbrains.annotations.NotNull;
 
+import com.sun.nio.file.ExtendedOpenOption;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class holds utility methods related to verification of the files.
@@ -45,6 +59,24 @@ import java.util.Objects;
  */
 public class FileVerUtils {
     private static final LoggerCustom logger = new LoggerCustom("File Verification Utilities");
+    /**
+     * Alignment of buffers allocated with {@link FileVerUtils#allocateReadBuffer(int)}. Block sizes above this value don't support Direct I/O.
+     */
+    public static final int BUFFER_ALIGNMENT = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer> readBuffer = ThreadLocal.withInitial(() -> allocateReadBuffer(READ_BUFFER_SIZE));
+    private static final BufferSource threadBufferSource = new BufferSource() {
+        @Override
+        public ByteBuffer acquire() {return readBuffer.get();}
+        @Override
+        public void release(ByteBuffer buffer) {}
+    };
+    // Block size of the File Store for each directory, -1 if Direct I/O is not supported there.
+    private static final Map<Path, Integer> directIOBlockSizes = new ConcurrentHashMap<>();
+    public static final ReadStatistics DirectReadStatistics = new ReadStatistics("Direct I/O");
+    public static final ReadStatistics BufferedReadStatistics = new ReadStatistics("Buffered I/O");
+    // Fair, so permits are granted in the order the reads were requested.
+    private static Semaphore readPermits = new Semaphore(Integer.MAX_VALUE, true);
 
     /**
      * Used to verify integrity of the file with use of {@link FileVerUtils#verifyFileSize(Path, int)} and {@link FileVerUtils#verifyHash(Path, String, String)}.
@@ -205,28 +237,326 @@ public class FileVerUtils {
             }
         }
 
-        InputStream InputData;
         MessageDigest MD = MessageDigest.getInstance(Algorithm);
 
         if (Objects.isNull(DownloadURL)) {
             if (Files.notExists(FilePath)) throw new NoSuchFileException("Specified File to use for calculating hash value (" + Algorithm +") doesn't exists!");
-            InputData = Files.newInputStream(FilePath);
+            digestFile(FilePath, MD);
         } else {
-            InputData = new URL(DownloadURL).openStream();
+            try (InputStream InputData = new URL(DownloadURL).openStream()) {
+                byte[] Buffer = new byte[4096];
+                int read;
+
+                while((read = InputData.read(Buffer)) > 0)
+                    MD.update(Buffer, 0, read);
+            }
         }
 
-        byte[] Buffer = new byte[4096];
-        int read;
+        return toHexString(MD.digest());
+    }
+
+    /**
+     * Used to get a lowercase hexadecimal representation of the digest, in the format used by the manifests.
+     * @param Digest {@link Byte} array with the result of the Hash calculations.
+     * @return {@link String} with the hash value.
+     */
+    public static @NotNull String toHexString(byte @NotNull [] Digest) {
+        return HexFormat.of().formatHex(Digest);
+    }
+
+    /**
+     * Used to get a SHA-1 hash of a {@link String}, encoded as UTF-8. Meant for deriving file names from keys, not for verification.
+     * @param Value {@link String} to calculate the hash of.
+     * @return {@link String} with a lowercase hexadecimal representation of the hash.
+     * @throws IllegalStateException when SHA-1 is not supported by the JVM.
+     */
+    public static @NotNull String getStringHash(@NotNull String Value) {
+        try {
+            return toHexString(MessageDigest.getInstance("SHA-1").digest(Value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported by this JVM!", e);
+        }
+    }
 
-        while((read = InputData.read(Buffer)) > 0)
-            MD.update(Buffer, 0, read);
+    /**
+     * Used to feed the entire content of a file to the passed {@link MessageDigest} objects.
+     * The file is read with use of {@link FileVerUtils#readFile(Path, BufferSource, ChunkHandler)}, in a buffer reused by the current thread.
+     * Amount of concurrent reads is limited with {@link FileVerUtils#setReadConcurrency(int)}.
+     * @param FilePath {@link Path} to a file to read.
+     * @param Digests {@link MessageDigest} objects to update with the content of the file.
+     * @return {@link Long} with the amount of bytes read.
+     * @throws IOException when IO operation fails.
+     */
+    public static long digestFile(@NotNull Path FilePath, MessageDigest @NotNull ... Digests) throws IOException {
+        Objects.requireNonNull(FilePath);
+        Semaphore permits = readPermits;
+        permits.acquireUninterruptibly();
+        try {
+            ChunkHandler handler = (chunk) -> {
+                for (MessageDigest Digest : Digests) {
+                    chunk.rewind();
+                    Digest.update(chunk);
+                }
+            };
+            try {
+                return readFile(FilePath, threadBufferSource, handler);
+            } catch (DirectIOException e) {
+                // Part of the file is already in the digests, so they are reset and the file is read again with normal reads.
+                for (MessageDigest Digest : Digests) Digest.reset();
+                return readFile(FilePath, threadBufferSource, handler);
+            }
+        } finally {
+            permits.release();
+        }
+    }
 
-        InputData.close();
+    /**
+     * Used to read the entire content of a file in chunks, passing each of them to the handler.
+     * When Direct I/O is enabled in the {@link ArgumentDecoder}, the file is read around the OS page cache,
+     * falling back to normal reads when the file system doesn't support it.
+     * When a Direct I/O read fails before any chunk is passed to the handler, the file is read again with normal reads.
+     * @param FilePath {@link Path} to a file to read.
+     * @param Source {@link BufferSource} providing buffers for the reads. Buffers have to be allocated with {@link FileVerUtils#allocateReadBuffer(int)}.
+     * @param Handler {@link ChunkHandler} receiving read chunks. Ownership of the buffer is passed to the handler with the chunk.
+     * @return {@link Long} with the amount of bytes read.
+     * @throws DirectIOException when a Direct I/O read fails after chunks were already passed to the handler.
+     * Direct I/O is disabled for the directory at that point, so the caller should discard the received chunks and read the file again.
+     * @throws IOException when IO operation fails.
+     */
+    public static long readFile(@NotNull Path FilePath, @NotNull BufferSource Source, @NotNull ChunkHandler Handler) throws IOException {
+        Objects.requireNonNull(FilePath);
+        Objects.requireNonNull(Source);
+        Objects.requireNonNull(Handler);
+
+        if (ArgumentDecoder.getInstance().isDirectIOActive()) {
+            int blockSize = getDirectIOBlockSize(FilePath);
+            FileChannel channel = null;
+            if (blockSize > 0) {
+                try {
+                    channel = FileChannel.open(FilePath, StandardOpenOption.READ, ExtendedOpenOption.DIRECT);
+                } catch (NoSuchFileException e) {
+                    throw e;
+                } catch (UnsupportedOperationException | IOException e) {
+                    logger.logStackTrace("Opening \"" + FilePath + "\" with Direct I/O failed! Falling back to normal reads for files in this directory.", e);
+                    directIOBlockSizes.put(FileUtils.getParentFolder(FilePath), -1);
+                }
+            }
+
+            long position = -1;
+            if (Objects.nonNull(channel)) {
+                try (FileChannel direct = channel) {
+                    position = readChannel(direct, Source, Handler, blockSize, DirectReadStatistics);
+                } catch (DirectIOException e) {
+                    // Some file systems accept Direct I/O while opening the file, but fail the reads.
+                    if (Files.notExists(FilePath)) throw new NoSuchFileException(FilePath.toString());
+                    logger.logStackTrace("Direct I/O read of \"" + FilePath + "\" failed! Falling back to normal reads for files in this directory.", e.getCause());
+                    directIOBlockSizes.put(FileUtils.getParentFolder(FilePath), -1);
+                    if (e.getBytesRead() > 0) throw e;
+                }
+            }
+
+            if (position >= 0) {
+                // Direct reads have to start at an aligned position, so the rest after a short read is read normally.
+                if (Files.size(FilePath) > position) {
+                    try (FileChannel rest = FileChannel.open(FilePath, StandardOpenOption.READ)) {
+                        rest.position(position);
+                        position += readChannel(rest, Source, Handler, 0, BufferedReadStatistics);
+                    }
+                }
+                DirectReadStatistics.recordFile();
+                return position;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(FilePath, StandardOpenOption.READ)) {
+            long read = readChannel(channel, Source, Handler, 0, BufferedReadStatistics);
+            BufferedReadStatistics.recordFile();
+            return read;
+        }
+    }
+
+    /**
+     * Used to read the channel until the end of the stream, or until the first short read when BlockSize is specified.
+     * @param Channel {@link FileChannel} to read from.
+     * @param Source {@link BufferSource} providing buffers for the reads.
+     * @param Handler {@link ChunkHandler} receiving read chunks.
+     * @param BlockSize {@link Integer} with the block size for Direct I/O reads, 0 for normal reads.
+     * @param Statistics {@link ReadStatistics} to record the reads in.
+     * @return {@link Long} with the amount of bytes read.
+     * @throws IOException when IO operation fails.
+     */
+    private static long readChannel(FileChannel Channel, BufferSource Source, ChunkHandler Handler, int BlockSize, ReadStatistics Statistics) throws IOException {
+        long total = 0;
+        while (true) {
+            ByteBuffer buffer = Source.acquire();
+            buffer.clear();
+
+            int read;
+            long StartTime = System.nanoTime();
+            try {
+                read = Channel.read(buffer);
+            } catch (IOException e) {
+                Source.release(buffer);
+                if (BlockSize > 0 && !(e instanceof ClosedChannelException)) throw new DirectIOException("Direct I/O read failed after " + total + " bytes!", e, total);
+                throw e;
+            }
+            Statistics.recordRead(Math.max(read, 0), System.nanoTime() - StartTime);
+
+            if (read <= 0) {
+                Source.release(buffer);
+                return total;
+            }
+
+            total += read;
+            buffer.flip();
+            Handler.accept(buffer);
+            if (BlockSize > 0 && read % BlockSize != 0) return total;
+        }
+    }
+
+    /**
+     * Used to get a block size required for Direct I/O reads of the specified file. Values are cached per directory.
+     * @param FilePath {@link Path} to a file.
+     * @return {@link Integer} with the block size, or -1 when Direct I/O isn't supported for that file.
+     */
+    private static int getDirectIOBlockSize(Path FilePath) {
+        return directIOBlockSizes.computeIfAbsent(FileUtils.getParentFolder(FilePath), (directory) -> {
+            try {
+                long blockSize = Files.getFileStore(FilePath).getBlockSize();
+                if (blockSize < 1 || blockSize > BUFFER_ALIGNMENT || Long.bitCount(blockSize) != 1) {
+                    logger.warn("File Store of \"" + directory + "\" has unsupported block size (" + blockSize + ") for Direct I/O! Normal reads will be used.");
+                    return -1;
+                }
+                return (int) blockSize;
+            } catch (UnsupportedOperationException | IOException e) {
+                logger.warn("Couldn't get the block size of the File Store for \"" + directory + "\"! Normal reads will be used. (" + e + ")");
+                return -1;
+            }
+        });
+    }
+
+    /**
+     * Used to allocate a direct {@link ByteBuffer} usable for both Direct I/O and normal reads.
+     * @param Size {@link Integer} with the capacity of the buffer. Has to be a multiple of {@link FileVerUtils#BUFFER_ALIGNMENT}.
+     * @return Direct {@link ByteBuffer} aligned to {@link FileVerUtils#BUFFER_ALIGNMENT}.
+     * @throws IllegalArgumentException when Size is not a multiple of {@link FileVerUtils#BUFFER_ALIGNMENT}.
+     */
+    public static @NotNull ByteBuffer allocateReadBuffer(int Size) throws IllegalArgumentException {
+        if (Size < 1 || Size % BUFFER_ALIGNMENT != 0) throw new IllegalArgumentException("Size of the read buffer has to be a multiple of " + BUFFER_ALIGNMENT + "!");
+        return ByteBuffer.allocateDirect(Size + BUFFER_ALIGNMENT).alignedSlice(BUFFER_ALIGNMENT).slice(0, Size);
+    }
+
+    /**
+     * Used to set the maximal amount of files read at the same time by {@link FileVerUtils#digestFile(Path, MessageDigest...)}.
+     * Threads over the limit wait for their turn in the order of their requests.
+     * @param maxReads {@link Integer} with the maximal amount of concurrent reads.
+     * @throws IllegalArgumentException when maxReads is below 1.
+     */
+    public static void setReadConcurrency(int maxReads) throws IllegalArgumentException {
+        if (maxReads < 1) throw new IllegalArgumentException("Amount of concurrent reads can't be below 1!");
+        readPermits = new Semaphore(maxReads, true);
+    }
+
+    /**
+     * Used to reset the read statistics of both Direct and Buffered reads.
+     */
+    public static void resetReadStatistics() {
+        DirectReadStatistics.reset();
+        BufferedReadStatistics.reset();
+    }
+
+    /**
+     * Used to log read statistics of both Direct and Buffered reads.
+     * @param wallTime {@link Long} with the time of the entire phase in nanoseconds, used for total throughput.
+     */
+    public static void logReadStatistics(long wallTime) {
+        long totalBytes = DirectReadStatistics.getBytes() + BufferedReadStatistics.getBytes();
+        if (totalBytes == 0) return;
+        for (ReadStatistics statistics : new ReadStatistics[]{DirectReadStatistics, BufferedReadStatistics}) {
+            if (statistics.getBytes() == 0) continue;
+            logger.summary("> " + statistics + ".");
+        }
+        logger.summary("> Total throughput: " + ReadStatistics.formatThroughput(totalBytes, wallTime) + ".");
+    }
+
+    /**
+     * Provides buffers for {@link FileVerUtils#readFile(Path, BufferSource, ChunkHandler)}.
+     */
+    public interface BufferSource {
+        /**
+         * Used to get a buffer for the next read. Can block until a buffer is available.
+         * @return Direct {@link ByteBuffer} allocated with {@link FileVerUtils#allocateReadBuffer(int)}.
+         * @throws IOException when waiting for the buffer is interrupted.
+         */
+        ByteBuffer acquire() throws IOException;
+
+        /**
+         * Used to give back a buffer that wasn't passed to the {@link ChunkHandler}.
+         * @param buffer {@link ByteBuffer} to give back.
+         */
+        void release(ByteBuffer buffer);
+    }
+
+    /**
+     * Receives chunks read by {@link FileVerUtils#readFile(Path, BufferSource, ChunkHandler)}, in the order of the file content.
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        /**
+         * Used to handle a chunk of the file.
+         * @param chunk {@link ByteBuffer} with the chunk, flipped for reading.
+         * @throws IOException when handling of the chunk fails.
+         */
+        void accept(ByteBuffer chunk) throws IOException;
+    }
+
+    /**
+     * This class is used to hold statistics of file reads done while calculating hashes.
+     */
+    public static class ReadStatistics {
+        private final String name;
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder time = new LongAdder();
+
+        private ReadStatistics(String name) {
+            this.name = name;
+        }
+
+        private void recordRead(long bytes, long time) {
+            this.bytes.add(bytes);
+            this.time.add(time);
+        }
+
+        private void recordFile() {
+            this.files.increment();
+        }
+
+        private void reset() {
+            this.files.reset();
+            this.bytes.reset();
+            this.time.reset();
+        }
+
+        public long getFiles() {return this.files.sum();}
+        public long getBytes() {return this.bytes.sum();}
+        public long getTime() {return this.time.sum();}
+
+        /**
+         * Used to format throughput of the specified amount of data in the specified time.
+         * @param bytes {@link Long} with the amount of bytes.
+         * @param time {@link Long} with the time in nanoseconds.
+         * @return {@link String} with throughput in MB/s.
+         */
+        public static @NotNull String formatThroughput(long bytes, long time) {
+            double seconds = (double) time / TimeUnit.SECONDS.toNanos(1);
+            double megaBytes = (double) bytes / (1024L * 1024L);
+            return String.format(Locale.ROOT, "%.2f MB in %.3fs (%.2f MB/s)", megaBytes, seconds, (seconds > 0)? megaBytes / seconds: 0);
+        }
 
-        StringBuilder hash = new StringBuilder(new BigInteger(1, MD.digest()).toString(16));
-        while (hash.length() < MD.getDigestLength()*2) {
-            hash.insert(0, "0");
+        @Override
+        public String toString() {
+            return this.name + ": " + RandomUtils.intGrammar((int) this.getFiles(), " file", " files", true) + ", " + formatThroughput(this.getBytes(), this.getTime()) + " of read time summed over all threads";
         }
-        return hash.toString();
     }
 }
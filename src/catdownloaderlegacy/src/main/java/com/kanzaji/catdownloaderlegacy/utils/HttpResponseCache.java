@@ -0,0 +1,250 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import com.google.gson.Gson;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class holds an on-disk cache of responses from metadata endpoints, shared between runs and packs.
+ * Fresh responses (younger than the TTL of the endpoint) are returned without any requests,
+ * stale responses are revalidated with ETag / Last-Modified, and responses are transferred compressed with gzip when possible.
+ * When the cache directory isn't set, responses are requested directly without caching.
+ * Responses with {@code Cache-Control: no-store} are never cached, and old entries are evicted when the cache directory is set.
+ * @see HttpResponseCache#get(String, Duration)
+ */
+public class HttpResponseCache {
+    private static final LoggerCustom logger = new LoggerCustom("HTTP Response Cache");
+    private static final Gson gson = new Gson();
+    public static final String DIRECTORY_NAME = "CDL-HTTP-cache";
+    // Stale entries are still useful for revalidation, so they are kept well past the largest TTL of the endpoints.
+    private static final Duration MAX_ENTRY_AGE = Duration.ofDays(30);
+    private static final int MAX_ENTRIES = 10000;
+    private static volatile Path cacheDirectory = null;
+    private static final AtomicInteger hits = new AtomicInteger();
+    private static final AtomicInteger revalidations = new AtomicInteger();
+    private static final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Response returned from the cache, or from the network.
+     * @param statusCode HTTP status code of the response. Revalidated responses are returned with 200.
+     * @param body Body of the response, empty for non-successful responses.
+     * @param cached {@code true} if the body was taken from the cache.
+     */
+    public record Response(int statusCode, @NotNull String body, boolean cached) {}
+
+    /**
+     * Meta-data stored in the first line of a cache entry.
+     */
+    private static class Entry {
+        private String url;
+        private String etag;
+        private String lastModified;
+        private long storedAt;
+    }
+
+    /**
+     * Used to set the directory for the cache. Directory is created inside of the specified cache path.
+     * Entries not refreshed for {@link HttpResponseCache#MAX_ENTRY_AGE} are removed, and if there are more than {@link HttpResponseCache#MAX_ENTRIES} entries left, the oldest ones are removed as well.
+     * @param CachePath {@link Path} to the cache directory of the app, or null to disable caching of the responses.
+     * @throws IOException when IO Exception occurs while creating the directory.
+     */
+    public static void setCachePath(@Nullable Path CachePath) throws IOException {
+        if (Objects.isNull(CachePath)) {
+            cacheDirectory = null;
+            return;
+        }
+        Path directory = Path.of(CachePath.toString(), DIRECTORY_NAME);
+        Files.createDirectories(directory);
+        evict(directory);
+        cacheDirectory = directory;
+    }
+
+    /**
+     * Used to remove old entries from the cache directory. Age of the entry is taken from the modification time of its file, as entries are rewritten every time they are refreshed.
+     * @param Directory {@link Path} to the cache directory.
+     * @throws IOException when IO Exception occurs while listing the directory.
+     */
+    private static void evict(@NotNull Path Directory) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(Directory)) {
+            entries = files.filter((file) -> file.getFileName().toString().endsWith(".gz")).collect(Collectors.toList());
+        }
+
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path entry: entries) {
+            try {
+                modified.put(entry, Files.getLastModifiedTime(entry).toMillis());
+            } catch (NoSuchFileException ignored) {}
+        }
+
+        long oldest = System.currentTimeMillis() - MAX_ENTRY_AGE.toMillis();
+        List<Path> sorted = new ArrayList<>(modified.keySet());
+        sorted.sort(Comparator.comparingLong(modified::get));
+        int removed = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (modified.get(sorted.get(i)) >= oldest && sorted.size() - i <= MAX_ENTRIES) break;
+            try {
+                Files.deleteIfExists(sorted.get(i));
+                removed++;
+            } catch (IOException e) {
+                logger.logStackTrace("Exception thrown while removing old cache entry \"" + sorted.get(i).getFileName() + "\"!", e);
+            }
+        }
+        if (removed > 0) logger.log("Removed " + RandomUtils.intGrammar(removed, " old entry", " old entries", true) + " from the HTTP response cache.");
+    }
+
+    /**
+     * Used to get a response for the specified URL.
+     * @param URL URL of the metadata endpoint.
+     * @param TTL {@link Duration} for which cached response is used without revalidation.
+     * @return {@link Response} for the URL.
+     * @throws IOException when IO Exception occurs while requesting the data.
+     */
+    public static @NotNull Response get(@NotNull String URL, @NotNull Duration TTL) throws IOException {
+        Objects.requireNonNull(URL);
+        Objects.requireNonNull(TTL);
+        Path directory = cacheDirectory;
+        Path entryPath = (Objects.isNull(directory))? null: Path.of(directory.toString(), FileVerUtils.getStringHash(URL) + ".gz");
+
+        Entry entry = null;
+        String cachedBody = null;
+        if (Objects.nonNull(entryPath)) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(entryPath)), StandardCharsets.UTF_8))) {
+                entry = gson.fromJson(in.readLine(), Entry.class);
+                cachedBody = readAll(in);
+                // Hash collisions are not impossible, entry is only valid for exactly the same URL.
+                if (Objects.isNull(entry) || !Objects.equals(entry.url, URL)) {
+                    entry = null;
+                    cachedBody = null;
+                }
+            } catch (NoSuchFileException ignored) {
+            } catch (Exception e) {
+                logger.logStackTrace("Exception thrown while reading cached response for \"" + URL + "\"! It will be requested again.", e);
+                entry = null;
+                cachedBody = null;
+            }
+        }
+
+        if (Objects.nonNull(entry) && System.currentTimeMillis() - entry.storedAt < TTL.toMillis()) {
+            hits.incrementAndGet();
+            return new Response(200, cachedBody, true);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(URL).openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (Objects.nonNull(entry)) {
+            if (Objects.nonNull(entry.etag)) connection.setRequestProperty("If-None-Match", entry.etag);
+            if (Objects.nonNull(entry.lastModified)) connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+        }
+
+        int statusCode = connection.getResponseCode();
+        if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && Objects.nonNull(entry)) {
+            revalidations.incrementAndGet();
+            entry.storedAt = System.currentTimeMillis();
+            store(entryPath, entry, cachedBody);
+            return new Response(200, cachedBody, true);
+        }
+
+        misses.incrementAndGet();
+        if (statusCode != HttpURLConnection.HTTP_OK) {
+            // Body of the error has to be consumed, so the connection can be reused.
+            InputStream error = connection.getErrorStream();
+            if (Objects.nonNull(error)) error.close();
+            if (statusCode < 400) connection.getInputStream().close();
+            return new Response(statusCode, "", false);
+        }
+
+        String body;
+        InputStream stream = connection.getInputStream();
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) stream = new GZIPInputStream(stream);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            body = readAll(in);
+        }
+
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (Objects.nonNull(cacheControl) && cacheControl.toLowerCase(Locale.ROOT).contains("no-store")) {
+            if (Objects.nonNull(entryPath)) Files.deleteIfExists(entryPath);
+        } else if (Objects.nonNull(entryPath)) {
+            Entry newEntry = new Entry();
+            newEntry.url = URL;
+            newEntry.etag = connection.getHeaderField("ETag");
+            newEntry.lastModified = connection.getHeaderField("Last-Modified");
+            newEntry.storedAt = System.currentTimeMillis();
+            store(entryPath, newEntry, body);
+        }
+        return new Response(statusCode, body, false);
+    }
+
+    /**
+     * Used to get the statistics of the cache in this session.
+     * @return String with amount of cache hits, revalidations and misses.
+     */
+    public static @NotNull String getStatistics() {
+        return hits.get() + " hits, " + revalidations.get() + " revalidated, " + misses.get() + " requested";
+    }
+
+    /**
+     * Used to store an entry. The file is replaced atomically, when supported by the file system, so concurrent writers never leave a broken entry.
+     */
+    private static void store(@NotNull Path EntryPath, @NotNull Entry Entry, @NotNull String Body) {
+        try {
+            FileUtils.writeAtomically(EntryPath, (stream) -> {
+                try (Writer out = new OutputStreamWriter(new GZIPOutputStream(stream), StandardCharsets.UTF_8)) {
+                    out.write(gson.toJson(Entry));
+                    out.write('\n');
+                    out.write(Body);
+                }
+            });
+        } catch (Exception e) {
+            logger.logStackTrace("Exception thrown while caching response for \"" + Entry.url + "\"!", e);
+        }
+    }
+
+    private static @NotNull String readAll(@NotNull Reader In) throws IOException {
+        StringWriter out = new StringWriter();
+        In.transferTo(out);
+        return out.toString();
+    }
+}
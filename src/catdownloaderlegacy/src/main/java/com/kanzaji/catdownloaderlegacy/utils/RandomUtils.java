@@ -24,6 +24,7 @@
 
 package com.kanzaji.catdownloaderlegacy.utils;
 
+import com.kanzaji.catdownloaderlegacy.loggers.EventLog;
 import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
 
 import com.google.gson.Gson;
@@ -68,7 +69,9 @@ public class RandomUtils {
         if (logger.isInitialized()) {
             logger.log("Cat-Downloader Legacy is created and maintained by Kanzaji! Find the source code and issue tracker here:");
             logger.log("https://github.com/Kanzaji/Cat-Downloader-Legacy");
+            logger.flush();
         }
+        EventLog.flush();
         System.exit(exitCode);
     }
 
@@ -187,6 +187,8 @@ public class SettingsManager {
             if (Objects.isNull(SettingsFileData.logDirectory)) SettingsFileData.logDirectory = "";
             if (Objects.isNull(SettingsFileData.workingDirectory)) SettingsFileData.workingDirectory = "";
             if (Objects.isNull(SettingsFileData.dataCacheDirectory)) SettingsFileData.dataCacheDirectory = SettingsFileData.logDirectory;
+            if (Objects.isNull(SettingsFileData.logLevel)) SettingsFileData.logLevel = "info";
+            if (Objects.isNull(SettingsFileData.overridesConflictPolicy)) SettingsFileData.overridesConflictPolicy = ZipExtractor.ConflictPolicy.OVERWRITE.toString();
 
             SettingsFileData.mode = SettingsFileData.mode.toLowerCase(Locale.ROOT);
             ModBlackList = (Objects.isNull(SettingsFileData.modBlackList))? new Settings.BlackList<>(): SettingsFileData.modBlackList;
@@ -223,9 +225,31 @@ public class SettingsManager {
         if (SettingsData.threadCount < 1) {
             errors.add("Thread count can't be below 1!");
         }
+        if (SettingsData.ioThreadCount < 1) {
+            errors.add("I/O Thread count can't be below 1!");
+        }
+        if (SettingsData.hashThreadCount < 0) {
+            errors.add("Hash Thread count can't be negative!");
+        }
+        if (SettingsData.resolverThreadCount < 1) {
+            errors.add("Resolver Thread count can't be below 1!");
+        }
+        if (SettingsData.cfRequestRate < 0) {
+            errors.add("CurseForge request rate can't be negative!");
+        }
+        if (Objects.isNull(SettingsData.overridesConflictPolicy)) {
+            SettingsData.overridesConflictPolicy = ZipExtractor.ConflictPolicy.OVERWRITE.toString();
+        } else if (Objects.isNull(ZipExtractor.ConflictPolicy.fromString(SettingsData.overridesConflictPolicy))) {
+            errors.add("Overrides Conflict Policy: " + SettingsData.overridesConflictPolicy + " is not correct! Available policies are: Overwrite // Keep // Backup");
+        }
         if (SettingsData.downloadAttempts < 1) {
             errors.add("Re-Download attempts can't be below 1!");
         }
+        if (Objects.isNull(SettingsData.logLevel)) {
+            SettingsData.logLevel = "info";
+        } else if (!ArgumentDecoder.validateLogLevel(SettingsData.logLevel.toLowerCase(Locale.ROOT))) {
+            errors.add("Log Level: " + SettingsData.logLevel + " is not correct! Available log levels are: Info // Quiet // Warn // Error // Critical");
+        }
         if (SettingsData.logStockpileSize < 0) {
             errors.add("LogStockpileSize can't be negative!");
         }
@@ -291,15 +315,24 @@ public class SettingsManager {
                         case "logDirectory" -> "\"" + SettingsData.logDirectory.replaceAll("\\\\", "/") + "\"";
                         case "dataCacheDirectory" -> "\"" + SettingsData.dataCacheDirectory.replaceAll("\\\\", "/") + "\"";
                         case "threadCount" -> SettingsData.threadCount;
+                        case "ioThreadCount" -> SettingsData.ioThreadCount;
+                        case "hashThreadCount" -> SettingsData.hashThreadCount;
+                        case "resolverThreadCount" -> SettingsData.resolverThreadCount;
+                        case "cfRequestRate" -> SettingsData.cfRequestRate;
                         case "downloadAttempts" -> SettingsData.downloadAttempts;
                         case "logStockpileSize" -> SettingsData.logStockpileSize;
+                        case "logLevel" -> "\"" + SettingsData.logLevel + "\"";
                         case "dataCache" -> SettingsData.dataCache;
                         case "isLoggerActive" -> SettingsData.isLoggerActive;
                         case "shouldStockpileLogs" -> SettingsData.shouldStockpileLogs;
                         case "shouldCompressLogFiles" -> SettingsData.shouldCompressLogFiles;
+                        case "isEventLogActive" -> SettingsData.isEventLogActive;
                         case "isUpdaterActive" -> SettingsData.isUpdaterActive;
                         case "isFileSizeVerificationActive" -> SettingsData.isFileSizeVerificationActive;
                         case "isHashVerificationActive" -> SettingsData.isHashVerificationActive;
+                        case "isDirectIOVerificationActive" -> SettingsData.isDirectIOVerificationActive;
+                        case "shouldSortVerificationByLocality" -> SettingsData.shouldSortVerificationByLocality;
+                        case "overridesConflictPolicy" -> "\"" + SettingsData.overridesConflictPolicy + "\"";
                         // Special Handling cases
                         case "modBlackList" -> saveModBlackList(Line, SettingsData.modBlackList, it);
                         default -> throw new IllegalArgumentException("Illegal key in the SettingsFile!");
@@ -350,12 +383,21 @@ public class SettingsManager {
         ARDConfig.isLoggerActive = ARD.isLoggerActive();
         ARDConfig.isUpdaterActive = ARD.isUpdaterActive();
         ARDConfig.shouldCompressLogFiles = ARD.shouldCompressLogs();
+        ARDConfig.isEventLogActive = ARD.isEventLogActive();
         ARDConfig.shouldStockpileLogs = ARD.shouldStockpileLogs();
         ARDConfig.logStockpileSize = ARD.getLogStockSize();
+        ARDConfig.logLevel = ARD.getLogLevel();
         ARDConfig.threadCount = ARD.getThreads();
+        ARDConfig.ioThreadCount = ARD.getIOThreads();
+        ARDConfig.hashThreadCount = ARD.getHashThreadSetting();
+        ARDConfig.resolverThreadCount = ARD.getResolverThreads();
+        ARDConfig.cfRequestRate = ARD.getCFRequestRate();
         ARDConfig.downloadAttempts = ARD.getDownloadAttempts();
         ARDConfig.isHashVerificationActive = ARD.isHashVerActive();
         ARDConfig.isFileSizeVerificationActive = ARD.isFileSizeVerActive();
+        ARDConfig.isDirectIOVerificationActive = ARD.isDirectIOActive();
+        ARDConfig.shouldSortVerificationByLocality = ARD.shouldSortByLocality();
+        ARDConfig.overridesConflictPolicy = ARD.getOverridesConflictPolicy().toString();
         ARDConfig.modBlackList = new Settings.BlackList<>();
         ARDConfig.dataCache = ARD.isCacheEnabled();
         ARDConfig.dataCacheDirectory = ARD.getCachePath();
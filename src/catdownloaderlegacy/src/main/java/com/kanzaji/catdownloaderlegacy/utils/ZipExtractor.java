@@ -0,0 +1,347 @@
+/**************************************************************************************
+ * MIT License                                                                        *
+ *                                                                                    *
+ * Copyright (c) 2023. Kanzaji                                                        *
+ *                                                                                    *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy       *
+ * of this software and associated documentation files (the "Software"), to deal      *
+ * in the Software without restriction, including without limitation the rights       *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell          *
+ * copies of the Software, and to permit persons to whom the Software is              *
+ * furnished to do so, subject to the following conditions:                           *
+ *                                                                                    *
+ * The above copyright notice and this permission notice shall be included in all     *
+ * copies or substantial portions of the Software.                                    *
+ *                                                                                    *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR         *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,           *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE       *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER             *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,      *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE      *
+ * SOFTWARE.                                                                          *
+ **************************************************************************************/
+
+package com.kanzaji.catdownloaderlegacy.utils;
+
+import com.kanzaji.catdownloaderlegacy.loggers.LoggerCustom;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * This class is used to extract a directory of a zip archive (like overrides of a modpack) directly into its final location.
+ * Entries matching the file on the disk by size and CRC are skipped, so repeated syncs of the same pack don't rewrite unchanged files.
+ * Changed files are written to a staging directory first, and then moved in place, so a file is never left partially written.
+ * Extraction is split between multiple workers, as inflating on a single core is the bottleneck for archives with large overrides.
+ * @see ZipExtractor#extract(Path, String, Path, Path, ConflictPolicy, int)
+ */
+public class ZipExtractor {
+    private static final LoggerCustom logger = new LoggerCustom("Zip Extractor");
+    public static final String BACKUP_DIRECTORY_NAME = "CDLBackup";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Queue<byte[]> bufferPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Determines what happens with a file in the destination that differs from the entry in the archive.
+     */
+    public enum ConflictPolicy {
+        /**
+         * Existing file is replaced with the file from the archive.
+         */
+        OVERWRITE,
+        /**
+         * Existing file is kept, and the entry from the archive is skipped.
+         */
+        KEEP,
+        /**
+         * Existing file is moved to the {@link ZipExtractor#BACKUP_DIRECTORY_NAME} folder in the destination, and replaced with the file from the archive.
+         */
+        BACKUP;
+
+        /**
+         * Used to get a {@link ConflictPolicy} from its name used in the Settings and arguments.
+         * @param Name {@link String} with the name of the policy (case-insensitive).
+         * @return {@link ConflictPolicy} with the specified name, or {@code null} if no policy with that name exists.
+         */
+        public static @Nullable ConflictPolicy fromString(@Nullable String Name) {
+            if (Objects.isNull(Name)) return null;
+            for (ConflictPolicy policy : values()) {
+                if (Objects.equals(policy.toString(), Name.toLowerCase(Locale.ROOT))) return policy;
+            }
+            return null;
+        }
+
+        @Contract(pure = true)
+        @Override
+        public @NotNull String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Statistics of the extraction.
+     * @param extracted Amount of files written to the destination.
+     * @param unchanged Amount of files skipped, because they already matched the archive.
+     * @param kept Amount of modified files kept due to {@link ConflictPolicy#KEEP}.
+     * @param backedUp Amount of modified files moved to the backup folder due to {@link ConflictPolicy#BACKUP}.
+     * @param bytesWritten Amount of bytes written to the destination.
+     */
+    public record Result(int extracted, int unchanged, int kept, int backedUp, long bytesWritten) {
+        /**
+         * Used to sum statistics of two extractions.
+         * @param Other {@link Result} to add.
+         * @return New {@link Result} with the sum of both.
+         */
+        @Contract(pure = true)
+        public @NotNull Result add(@NotNull Result Other) {
+            return new Result(extracted + Other.extracted, unchanged + Other.unchanged, kept + Other.kept, backedUp + Other.backedUp, bytesWritten + Other.bytesWritten);
+        }
+    }
+
+    /**
+     * Single file from the archive scheduled for the extraction.
+     * @param entry {@link ZipEntry} of the file.
+     * @param relativePath Path of the file relative to the destination.
+     * @param target Absolute {@link Path} to the file in the destination.
+     */
+    private record Task(@NotNull ZipEntry entry, @NotNull String relativePath, @NotNull Path target) {}
+
+    /**
+     * Used to extract content of the specified directory in the archive to the destination.
+     * Entries are split by their uncompressed size into balanced chunks, each extracted by a separate worker with its own handle to the archive.
+     * @param Archive {@link Path} to the zip archive.
+     * @param Directory {@link String} with the name of the directory in the archive to extract, without trailing slash.
+     * @param Destination {@link Path} to the folder where the content of the directory is extracted to.
+     * @param Staging {@link Path} to the folder used for writing files before moving them to the destination. Has to be on the same file system as the destination. Deleted after the extraction.
+     * @param Policy {@link ConflictPolicy} for files in the destination that differ from the archive.
+     * @param Threads Maximum amount of workers extracting the archive at the same time.
+     * @return {@link Result} with the statistics of the extraction.
+     * @throws IOException when IO Exception occurs in any of the workers.
+     * @throws InterruptedException when interrupted while waiting for the workers.
+     */
+    public static @NotNull Result extract(@NotNull Path Archive, @NotNull String Directory, @NotNull Path Destination, @NotNull Path Staging, @NotNull ConflictPolicy Policy, int Threads) throws IOException, InterruptedException {
+        Objects.requireNonNull(Archive);
+        Objects.requireNonNull(Directory);
+        Objects.requireNonNull(Policy);
+        if (Threads < 1) throw new IllegalArgumentException("Amount of threads can't be below 1!");
+        Path root = Destination.toAbsolutePath().normalize();
+        String prefix = Directory + "/";
+
+        logger.log("Extracting \"" + prefix + "\" of the archive \"" + Archive.toAbsolutePath() + "\" to \"" + root + "\" (Conflict policy: " + Policy + ")");
+
+        // Pre-pass over the central directory. Folders are created here, so workers don't race each other creating the same parents.
+        List<Task> tasks = new ArrayList<>();
+        Set<Path> directories = new HashSet<>();
+        try (ZipFile zipFile = new ZipFile(Archive.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (zipEntry.isDirectory() || !zipEntry.getName().startsWith(prefix) || zipEntry.getName().length() == prefix.length()) continue;
+
+                String relativePath = zipEntry.getName().substring(prefix.length());
+                Path target = root.resolve(relativePath).normalize();
+                if (!target.startsWith(root) || target.equals(root)) {
+                    logger.warn("Entry \"" + zipEntry.getName() + "\" points outside of the destination! Skipping...");
+                    continue;
+                }
+
+                tasks.add(new Task(zipEntry, relativePath, target));
+                directories.add(target.getParent());
+            }
+        }
+        for (Path directory : directories) Files.createDirectories(directory);
+        Files.createDirectories(Staging);
+
+        List<List<Task>> chunks = splitIntoChunks(tasks, Threads);
+        logger.log("Archive contains " + RandomUtils.intGrammar(tasks.size(), " file", " files", true) + " to extract, split into " + RandomUtils.intGrammar(chunks.size(), " chunk", " chunks", true) + ".");
+
+        Result result = new Result(0, 0, 0, 0, 0);
+        List<Exception> exceptions = new ArrayList<>();
+        ExecutorService extractionExecutor = Executors.newFixedThreadPool(Math.max(1, chunks.size()));
+        try {
+            List<Future<Result>> chunkResults = new ArrayList<>(chunks.size());
+            for (List<Task> chunk : chunks) {
+                chunkResults.add(extractionExecutor.submit(() -> extractChunk(Archive, chunk, root.resolve(BACKUP_DIRECTORY_NAME), Staging, Policy)));
+            }
+            for (Future<Result> chunkResult : chunkResults) {
+                try {
+                    result = result.add(chunkResult.get());
+                } catch (ExecutionException e) {
+                    exceptions.add((e.getCause() instanceof Exception cause)? cause: e);
+                }
+            }
+        } finally {
+            extractionExecutor.shutdownNow();
+            FileUtils.delete(Staging);
+        }
+
+        if (!exceptions.isEmpty()) {
+            IOException ioe = new IOException("IO Exception occurred while extracting the archive " + Archive.toAbsolutePath());
+            exceptions.forEach(ioe::addSuppressed);
+            throw ioe;
+        }
+
+        logger.summary("Extraction finished! " + result);
+        return result;
+    }
+
+    /**
+     * Used to split the entries into chunks with similar total uncompressed size.
+     * Entries are assigned from the largest to the smallest, each to the chunk with the smallest total size so far.
+     * @param Tasks {@link List} of the entries to split.
+     * @param Chunks Maximum amount of chunks to create.
+     * @return {@link List} with non-empty chunks of the entries.
+     */
+    private static @NotNull List<List<Task>> splitIntoChunks(@NotNull List<Task> Tasks, int Chunks) {
+        List<Task> sorted = new ArrayList<>(Tasks);
+        sorted.sort(Comparator.comparingLong((Task task) -> Math.max(task.entry().getSize(), 0)).reversed());
+
+        int amount = Math.min(Chunks, sorted.size());
+        long[] sizes = new long[amount];
+        List<List<Task>> chunks = new ArrayList<>(amount);
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(Comparator.comparingLong((Integer chunk) -> sizes[chunk]));
+        for (int i = 0; i < amount; i++) {
+            chunks.add(new ArrayList<>());
+            lightest.add(i);
+        }
+
+        for (Task task : sorted) {
+            int chunk = Objects.requireNonNull(lightest.poll());
+            chunks.get(chunk).add(task);
+            sizes[chunk] += Math.max(task.entry().getSize(), 0);
+            lightest.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Used by the workers to extract a chunk of the entries, with a separate handle to the archive.
+     * @param Archive {@link Path} to the zip archive.
+     * @param Chunk {@link List} of the entries to extract.
+     * @param Backups {@link Path} to the folder for files moved due to {@link ConflictPolicy#BACKUP}.
+     * @param Staging {@link Path} to the staging folder.
+     * @param Policy {@link ConflictPolicy} for files that differ from the archive.
+     * @return {@link Result} with the statistics of the chunk.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static @NotNull Result extractChunk(@NotNull Path Archive, @NotNull List<Task> Chunk, @NotNull Path Backups, @NotNull Path Staging, @NotNull ConflictPolicy Policy) throws IOException {
+        int extracted = 0;
+        int unchanged = 0;
+        int kept = 0;
+        int backedUp = 0;
+        long bytesWritten = 0;
+
+        byte[] buffer = acquireBuffer();
+        try (ZipFile zipFile = new ZipFile(Archive.toFile())) {
+            for (Task task : Chunk) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Extraction of the archive has been interrupted!");
+
+                if (Files.isRegularFile(task.target())) {
+                    if (isUnchanged(task.target(), task.entry(), buffer)) {
+                        unchanged++;
+                        continue;
+                    }
+
+                    switch (Policy) {
+                        case KEEP -> {
+                            logger.warn("File \"" + task.relativePath() + "\" differs from the archive. Keeping the existing file!");
+                            kept++;
+                            continue;
+                        }
+                        case BACKUP -> {
+                            Path backup = Backups.resolve(task.relativePath());
+                            Files.createDirectories(backup.getParent());
+                            Files.move(task.target(), backup, StandardCopyOption.REPLACE_EXISTING);
+                            logger.warn("File \"" + task.relativePath() + "\" differs from the archive. Existing file has been moved to \"" + backup + "\".");
+                            backedUp++;
+                        }
+                        case OVERWRITE -> logger.log(() -> "File \"" + task.relativePath() + "\" differs from the archive. Replacing...");
+                    }
+                }
+
+                Path staged = Files.createTempFile(Staging, task.target().getFileName().toString(), ".part");
+                try {
+                    try (InputStream entryStream = zipFile.getInputStream(task.entry()); OutputStream stagedStream = Files.newOutputStream(staged)) {
+                        int read;
+                        while ((read = entryStream.read(buffer)) != -1) {
+                            stagedStream.write(buffer, 0, read);
+                            bytesWritten += read;
+                        }
+                    }
+                    moveInPlace(staged, task.target());
+                } finally {
+                    Files.deleteIfExists(staged);
+                }
+                logger.log(() -> "File \"" + task.target() + "\" has been extracted.");
+                extracted++;
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+
+        return new Result(extracted, unchanged, kept, backedUp, bytesWritten);
+    }
+
+    /**
+     * Used to check if the file on the disk is the same as the entry in the archive, by comparing the size and CRC-32 of both.
+     * @param File {@link Path} to the file to check.
+     * @param Entry {@link ZipEntry} to compare with.
+     * @param Buffer Byte array used for reading the file.
+     * @return {@code true} if both the size and CRC-32 of the file match the entry.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static boolean isUnchanged(@NotNull Path File, @NotNull ZipEntry Entry, byte @NotNull [] Buffer) throws IOException {
+        if (Entry.getSize() < 0 || Entry.getCrc() < 0 || Files.size(File) != Entry.getSize()) return false;
+
+        CRC32 crc = new CRC32();
+        try (InputStream fileStream = Files.newInputStream(File)) {
+            int read;
+            while ((read = fileStream.read(Buffer)) != -1) crc.update(Buffer, 0, read);
+        }
+        return crc.getValue() == Entry.getCrc();
+    }
+
+    /**
+     * Used to get a buffer from the pool, or allocate a new one if the pool is empty.
+     * @return Byte array of {@link ZipExtractor#BUFFER_SIZE} length.
+     */
+    private static byte @NotNull [] acquireBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return (Objects.isNull(buffer))? new byte[BUFFER_SIZE]: buffer;
+    }
+
+    /**
+     * Used to return a buffer to the pool, for use by the next extraction.
+     * @param Buffer Byte array acquired with {@link ZipExtractor#acquireBuffer()}.
+     */
+    private static void releaseBuffer(byte @NotNull [] Buffer) {
+        bufferPool.offer(Buffer);
+    }
+
+    /**
+     * Used to move a staged file to its final location, atomically if the file system supports it.
+     * @param Staged {@link Path} to the staged file.
+     * @param Target {@link Path} to the final location of the file.
+     * @throws IOException when IO Exception occurs.
+     */
+    private static void moveInPlace(@NotNull Path Staged, @NotNull Path Target) throws IOException {
+        try {
+            Files.move(Staged, Target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(Staged, Target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}